@@ -0,0 +1,40 @@
+package com.example.migration.batch.cleanup;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 清理速率限制
+ * 所有清理分區共用同一個額度 (batch.cleanup.max-rows-per-second)，
+ * 每批刪除前依筆數預約時間，超過速率時等待，避免大量刪除影響線上交易。
+ * 設為 0 時不限制
+ */
+@Component
+public class CleanupRateLimiter {
+
+    @Value("${batch.cleanup.max-rows-per-second:0}")
+    private double maxRowsPerSecond;
+
+    /** 下一批可以開始的時間 (System.nanoTime) */
+    private long nextFreeNanos = System.nanoTime();
+
+    public void acquire(int rows) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFreeNanos);
+            nextFreeNanos = start + (long) (rows * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond);
+            waitNanos = start - now;
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
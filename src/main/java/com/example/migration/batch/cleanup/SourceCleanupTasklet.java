@@ -0,0 +1,215 @@
+package com.example.migration.batch.cleanup;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.reader.OracleSourceQuery;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 來源資料清理
+ * 每次執行處理分區內的一批資料列 (batch.cleanup.batch-size)：
+ * 依 ROWID 或主鍵順序以 keyset 讀取下一批 ROWID 與主鍵，以 $in 一次確認文檔已存在於 MongoDB，
+ * 只刪除已確認的資料列，未遷移的資料列保留並跳過。
+ * 每批的刪除以 oracleTransactionManager 在各自的交易中提交，UNDO 與鎖定範圍只有一批；
+ * 最後處理的位置與累計筆數在刪除提交後另外寫入 step ExecutionContext (JobRepository 使用另一個資料來源)，
+ * 兩者不是同一個交易。刪除已提交但位置尚未保存時中斷，重新啟動會從上次保存的位置重讀該批，
+ * 已刪除的資料列查不到而不會重複刪除，保留的資料列則可能重複計入 retainedCount
+ */
+@Component
+@StepScope
+public class SourceCleanupTasklet implements Tasklet {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceCleanupTasklet.class);
+
+    /** 最後處理的主鍵值 (依 key_columns 順序)，主鍵範圍分區使用 */
+    public static final String LAST_KEY_KEY = "cleanup.lastKey";
+
+    /** 最後處理的 ROWID，ROWID 範圍分區使用 */
+    public static final String LAST_ROWID_KEY = "cleanup.lastRowid";
+
+    public static final String DELETED_COUNT_KEY = "cleanup.deletedCount";
+    public static final String RETAINED_COUNT_KEY = "cleanup.retainedCount";
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    private CleanupRateLimiter rateLimiter;
+
+    @Value("${batch.cleanup.batch-size:1000}")
+    private int batchSize;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext stepContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.setFetchSize(batchSize);
+        }
+
+        List<SourceKey> batch = nextBatch(stepContext);
+        if (batch.isEmpty()) {
+            log.info("Cleanup of {} finished: deleted={}, retained={}", migrationPlan.getQualifiedTable(),
+                    stepContext.getLong(DELETED_COUNT_KEY, 0L), stepContext.getLong(RETAINED_COUNT_KEY, 0L));
+            return RepeatStatus.FINISHED;
+        }
+
+        rateLimiter.acquire(batch.size());
+
+        Set<String> migrated = migratedIds(batch);
+        List<SourceKey> confirmed = new ArrayList<>();
+        for (SourceKey key : batch) {
+            if (migrated.contains(key.documentId)) {
+                confirmed.add(key);
+            }
+        }
+
+        int deleted = delete(confirmed);
+        int retained = batch.size() - confirmed.size();
+        contribution.incrementWriteCount(deleted);
+        contribution.incrementFilterCount(retained);
+
+        SourceKey last = batch.get(batch.size() - 1);
+        if (OracleSourceQuery.isRowidRange(stepContext)) {
+            stepContext.putString(LAST_ROWID_KEY, last.rowid);
+        } else {
+            stepContext.put(LAST_KEY_KEY, new ArrayList<>(Arrays.asList(last.keyValues)));
+        }
+        stepContext.putLong(DELETED_COUNT_KEY, stepContext.getLong(DELETED_COUNT_KEY, 0L) + deleted);
+        stepContext.putLong(RETAINED_COUNT_KEY, stepContext.getLong(RETAINED_COUNT_KEY, 0L) + retained);
+
+        if (retained > 0) {
+            log.debug("Cleanup of {} kept {} rows not found in MongoDB", migrationPlan.getQualifiedTable(), retained);
+        }
+        return batch.size() < batchSize ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+
+    /**
+     * 讀取分區內上次位置之後的下一批資料列
+     * ROWID 範圍依 ROWID 排序，主鍵範圍依主鍵排序，兩者都可由索引或 ROWID 範圍直接定位起點
+     */
+    private List<SourceKey> nextBatch(ExecutionContext stepContext) {
+        List<String> keyColumns = migrationPlan.getKeyColumns();
+        boolean rowidRange = OracleSourceQuery.isRowidRange(stepContext);
+
+        // 刪除需讀取目前的資料，不使用快照查詢
+        List<Object> arguments = new ArrayList<>();
+        List<String> conditions = OracleSourceQuery.conditions(migrationPlan, stepContext, arguments);
+        if (rowidRange && stepContext.containsKey(LAST_ROWID_KEY)) {
+            conditions.add("ROWID > CHARTOROWID(?)");
+            arguments.add(stepContext.getString(LAST_ROWID_KEY));
+        } else if (!rowidRange && stepContext.containsKey(LAST_KEY_KEY)) {
+            conditions.add(OracleSourceQuery.keysetPredicate(keyColumns));
+            OracleSourceQuery.addKeysetArguments(arguments, ((List<?>) stepContext.get(LAST_KEY_KEY)).toArray());
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ROWIDTOCHAR(ROWID) AS RID, ")
+                .append(String.join(", ", keyColumns))
+                .append(" FROM ").append(migrationPlan.getQualifiedTable());
+        OracleSourceQuery.appendWhere(sql, conditions);
+        sql.append(" ORDER BY ").append(rowidRange ? "ROWID" : String.join(", ", keyColumns))
+                .append(" FETCH FIRST ? ROWS ONLY");
+        arguments.add(batchSize);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Object[] keyValues = new Object[keyColumns.size()];
+            for (int i = 0; i < keyValues.length; i++) {
+                keyValues[i] = rs.getObject(i + 2);
+            }
+            return new SourceKey(rs.getString("RID"), keyValues, migrationPlan.documentId(keyValues));
+        }, arguments.toArray());
+    }
+
+    /**
+     * 以單一 $in 查詢確認已寫入 MongoDB 的文檔 ID
+     */
+    private Set<String> migratedIds(List<SourceKey> batch) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (SourceKey key : batch) {
+            ids.add(key.documentId);
+        }
+
+        Set<String> migrated = new HashSet<>();
+        for (Document document : mongoTemplate.getCollection(migrationPlan.getCollection())
+                .find(new Document("_id", new Document("$in", ids)))
+                .projection(new Document("_id", 1))
+                .batchSize(ids.size())) {
+            migrated.add(String.valueOf(document.get("_id")));
+        }
+        return migrated;
+    }
+
+    /**
+     * 以 ROWID 直接定位刪除，同時比對主鍵，查詢後 ROWID 被重用的資料列不會被誤刪
+     */
+    private int delete(List<SourceKey> confirmed) {
+        if (confirmed.isEmpty()) {
+            return 0;
+        }
+
+        List<String> keyColumns = migrationPlan.getKeyColumns();
+        StringBuilder sql = new StringBuilder("DELETE FROM ").append(migrationPlan.getQualifiedTable())
+                .append(" WHERE ROWID = CHARTOROWID(?)");
+        for (String keyColumn : keyColumns) {
+            sql.append(" AND ").append(keyColumn).append(" = ?");
+        }
+
+        List<Object[]> arguments = new ArrayList<>(confirmed.size());
+        for (SourceKey key : confirmed) {
+            Object[] values = new Object[keyColumns.size() + 1];
+            values[0] = key.rowid;
+            System.arraycopy(key.keyValues, 0, values, 1, key.keyValues.length);
+            arguments.add(values);
+        }
+
+        int deleted = 0;
+        for (int count : jdbcTemplate.batchUpdate(sql.toString(), arguments)) {
+            // 驅動程式無法回報個別筆數時 (SUCCESS_NO_INFO) 視為已刪除
+            deleted += count < 0 ? 1 : count;
+        }
+        return deleted;
+    }
+
+    private static class SourceKey {
+        private final String rowid;
+        private final Object[] keyValues;
+        private final String documentId;
+
+        SourceKey(String rowid, Object[] keyValues, String documentId) {
+            this.rowid = rowid;
+            this.keyValues = keyValues;
+            this.documentId = documentId;
+        }
+    }
+}
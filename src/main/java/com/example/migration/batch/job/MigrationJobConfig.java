@@ -1,20 +1,43 @@
 package com.example.migration.batch.job;
 
+import com.example.migration.batch.cleanup.SourceCleanupTasklet;
+import com.example.migration.batch.listener.DeadLetterSkipListener;
 import com.example.migration.batch.listener.JobExecutionListener;
+import com.example.migration.batch.listener.MerkleTreeListener;
+import com.example.migration.batch.listener.SnapshotListener;
 import com.example.migration.batch.listener.StepExecutionListener;
+import com.example.migration.batch.listener.WatermarkListener;
+import com.example.migration.batch.partition.OracleSourcePartitioner;
+import com.example.migration.batch.plan.MigrationPlan;
 import com.example.migration.batch.processor.DataTransformProcessor;
+import com.example.migration.batch.reader.DeadLetterItemReader;
+import com.example.migration.batch.reader.OracleChangeDetectingReader;
 import com.example.migration.batch.reader.OracleClobReader;
+import com.example.migration.batch.reader.OracleKeysetReader;
+import com.example.migration.batch.reader.QueueingItemReader;
+import com.example.migration.batch.validation.MerkleRangePartitioner;
+import com.example.migration.batch.validation.RangeReconciliationTasklet;
 import com.example.migration.batch.writer.MongoDocumentWriter;
 import com.example.migration.batch.writer.OracleArchiveWriter;
+import com.example.migration.batch.writer.ReactiveMongoDocumentWriter;
 import com.example.migration.model.document.MigrationDocument;
-import com.example.migration.model.entity.OracleEntity;
+import com.example.migration.model.entity.MigrationMerkleNode;
+import com.example.migration.model.row.OracleRow;
+import com.example.migration.service.ConfigurationService;
+import com.example.migration.service.DeadLetterQueueService;
+import com.example.migration.service.MerkleTreeService;
+import com.example.migration.service.StagingCollectionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.support.CompositeItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,9 +46,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 /**
  * 遷移作業配置類
@@ -34,6 +61,9 @@ import java.util.Arrays;
 @Configuration
 public class MigrationJobConfig {
 
+    /** 不執行遷移步驟的作業，遷移計畫忽略暫存集合設定 */
+    private static final Set<String> MAINTENANCE_JOBS = Set.of("cleanupJob", "validationJob", "retryJob");
+
     @Autowired
     private JobRepository jobRepository;
 
@@ -45,21 +75,83 @@ public class MigrationJobConfig {
     @Qualifier("batchTaskExecutor")
     private TaskExecutor taskExecutor;
 
+    @Autowired
+    @Qualifier("workerTaskExecutor")
+    private TaskExecutor workerTaskExecutor;
+
     @Autowired
     private JobExecutionListener jobExecutionListener;
 
     @Autowired
     private StepExecutionListener stepExecutionListener;
 
+    @Autowired
+    private SnapshotListener snapshotListener;
+
+    @Autowired
+    private WatermarkListener watermarkListener;
+
+    @Autowired
+    private MerkleTreeListener merkleTreeListener;
+
+    @Autowired
+    private DeadLetterSkipListener deadLetterSkipListener;
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StagingCollectionService stagingCollectionService;
+
+    @Autowired
+    private MerkleTreeService merkleTreeService;
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate batchMongoTemplate;
+
+    @Autowired
+    private DeadLetterQueueService deadLetterQueueService;
+
+    @Autowired
+    private OracleSourcePartitioner oracleSourcePartitioner;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
     @Autowired
     private OracleClobReader oracleClobReader;
 
+    @Autowired
+    private OracleKeysetReader oracleKeysetReader;
+
+    @Autowired
+    private OracleChangeDetectingReader oracleChangeDetectingReader;
+
+    @Autowired
+    private DeadLetterItemReader deadLetterItemReader;
+
+    @Autowired
+    private SourceCleanupTasklet sourceCleanupTasklet;
+
+    @Autowired
+    private MerkleRangePartitioner merkleRangePartitioner;
+
+    @Autowired
+    private RangeReconciliationTasklet rangeReconciliationTasklet;
+
     @Autowired
     private DataTransformProcessor dataTransformProcessor;
 
     @Autowired
     private MongoDocumentWriter mongoDocumentWriter;
 
+    @Autowired
+    private ReactiveMongoDocumentWriter reactiveMongoDocumentWriter;
+
     @Autowired
     private OracleArchiveWriter oracleArchiveWriter;
 
@@ -72,30 +164,112 @@ public class MigrationJobConfig {
     @Value("${batch.retry-limit:3}")
     private int retryLimit;
 
-    @Value("${batch.throttle-limit:10}")
-    private int throttleLimit;
+    /** 重試作業再次失敗的資料列會重新記錄為 dead letter，skip 上限較寬 */
+    @Value("${batch.dead-letter.retry-skip-limit:1000}")
+    private int retrySkipLimit;
+
+    @Value("${batch.partition.grid-size:4}")
+    private int gridSize;
+
+    @Value("${batch.worker.threads:1}")
+    private int workerThreads;
+
+    @Value("${batch.worker.read-queue-capacity:2000}")
+    private int readQueueCapacity;
+
+    @Value("${batch.reader.prefetch.enabled:false}")
+    private boolean prefetchEnabled;
+
+    @Value("${batch.reader.prefetch.max-bytes:268435456}")
+    private long prefetchMaxBytes;
 
     @Value("${batch.archive.enabled:false}")
     private boolean archiveEnabled;
 
     /**
      * 主要遷移作業
+     * 以作業參數 jobConfig 指定遷移配置；各 YAML 配置另由 JobRegistryConfig 註冊同名的作業
      */
     @Bean(name = "migrationJob")
     public Job migrationJob() {
-        return new JobBuilder("migrationJob", jobRepository)
+        return createMigrationJob("migrationJob", "", chunkSize, taskExecutor);
+    }
+
+    /**
+     * 建立遷移作業
+     * 暫存集合準備、分區遷移、集合置換三個步驟；step scope 的 reader、processor、writer 與遷移計畫
+     * 在每次 step 執行時依作業的配置建立，多個作業可共用同一組 bean 同時執行
+     *
+     * @param stepPrefix        步驟名稱前綴，同時執行的作業以不同前綴區分步驟記錄與監控指標
+     * @param chunkSize         每次提交的筆數
+     * @param partitionExecutor 執行分區 worker step 的執行緒池
+     */
+    public Job createMigrationJob(String jobName, String stepPrefix, int chunkSize, TaskExecutor partitionExecutor) {
+        return new JobBuilder(jobName, jobRepository)
                 .listener(jobExecutionListener)
-                .start(migrationStep())
+                .listener(snapshotListener)
+                .listener(watermarkListener)
+                .listener(merkleTreeListener)
+                .start(stagingPrepareStep(stepPrefix))
+                .next(migrationStep(stepPrefix, chunkSize, partitionExecutor))
+                .next(collectionSwapStep(stepPrefix))
                 .build();
     }
 
     /**
-     * 遷移步驟
+     * 暫存集合準備步驟
+     * change_collection 啟用時重建空的暫存集合；重新啟動時此步驟已完成，不會清除已寫入的資料
      */
-    @Bean
-    public Step migrationStep() {
-        return new StepBuilder("migrationStep", jobRepository)
-                .<OracleEntity, MigrationDocument>chunk(chunkSize, transactionManager)
+    private Step stagingPrepareStep(String stepPrefix) {
+        return new StepBuilder(stepPrefix + "stagingPrepareStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    if (migrationPlan.isStagedReload()) {
+                        stagingCollectionService.prepare(migrationPlan);
+                    }
+                    return org.springframework.batch.repeat.RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    /**
+     * 集合置換步驟
+     * 所有分區完成後建立索引，並以 renameCollection 將暫存集合置換為目標集合
+     */
+    private Step collectionSwapStep(String stepPrefix) {
+        return new StepBuilder(stepPrefix + "collectionSwapStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    if (migrationPlan.isStagedReload()) {
+                        stagingCollectionService.swap(migrationPlan);
+                    }
+                    return org.springframework.batch.repeat.RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    /**
+     * 遷移步驟 (master)
+     * 依來源資料表的鍵值範圍分區，每個分區交由 partitionExecutor 平行執行 worker step
+     */
+    private Step migrationStep(String stepPrefix, int chunkSize, TaskExecutor partitionExecutor) {
+        String workerStepName = stepPrefix + "migrationWorkerStep";
+        return new StepBuilder(stepPrefix + "migrationStep", jobRepository)
+                .partitioner(workerStepName, oracleSourcePartitioner)
+                .step(migrationWorkerStep(workerStepName, chunkSize))
+                .gridSize(gridSize)
+                .taskExecutor(partitionExecutor)
+                .listener(stepExecutionListener)
+                .build();
+    }
+
+    /**
+     * 遷移步驟 (worker)
+     * 每個分區擁有獨立的 reader 游標，只處理分區範圍內的資料；
+     * batch.worker.threads 大於 1 時，分區內的 chunk 交由多個執行緒平行轉換與寫入
+     */
+    private Step migrationWorkerStep(String stepName, int chunkSize) {
+        FaultTolerantStepBuilder<OracleRow, MigrationDocument> builder =
+                new StepBuilder(stepName, jobRepository)
+                .<OracleRow, MigrationDocument>chunk(chunkSize, transactionManager)
                 .reader(itemReader())
                 .processor(itemProcessor())
                 .writer(itemWriter())
@@ -103,42 +277,97 @@ public class MigrationJobConfig {
                 .faultTolerant()
                 .skipLimit(skipLimit)
                 .skip(Exception.class)
+                // 預讀 producer 失敗後每次讀取都會拋出相同例外，計入 skip 只會耗盡額度並寫入無效的 dead letter
+                .noSkip(QueueingItemReader.ProducerFailureException.class)
                 .retryLimit(retryLimit)
                 .retry(Exception.class)
-                .throttleLimit(throttleLimit)
-                .taskExecutor(taskExecutor)
-                .build();
+                .listener(deadLetterSkipListener);
+        
+        if (workerThreads > 1) {
+            builder.taskExecutor(workerTaskExecutor)
+                    .throttleLimit(workerThreads);
+        }
+        
+        return builder.build();
+    }
+
+    /**
+     * 遷移計畫
+     * 每個 step 執行開始時解析一次作業配置，reader、processor、writer 共用同一份不可變計畫；
+     * 快照 SCN 與增量範圍由 SnapshotListener、WatermarkListener 在作業開始時寫入 Job ExecutionContext；
+     * 驗證等作業以作業參數 jobConfig 指定遷移配置，未指定時以作業名稱作為配置名稱；
+     * 重試、驗證、清理作業不執行暫存集合置換，寫入一律以 upsert 寫入目標集合
+     */
+    @Bean
+    @StepScope
+    public MigrationPlan migrationPlan(
+            @Value("#{stepExecution.jobExecution.jobInstance.jobName}") String jobName,
+            @Value("#{jobParameters['" + MigrationPlan.JOB_CONFIG_PARAMETER + "']}") String jobConfig,
+            @Value("#{jobExecutionContext['" + WatermarkListener.WATERMARK_LOW_KEY + "']}") Object watermarkLow,
+            @Value("#{jobExecutionContext['" + WatermarkListener.WATERMARK_HIGH_KEY + "']}") Object watermarkHigh,
+            @Value("#{jobExecutionContext['" + SnapshotListener.SNAPSHOT_SCN_KEY + "']}") Long snapshotScn) {
+        String configName = jobConfig != null ? jobConfig : jobName;
+        if (MAINTENANCE_JOBS.contains(jobName)) {
+            return MigrationPlan.forMaintenance(configName, configurationService.getJobConfig(configName));
+        }
+        return MigrationPlan.from(configName, configurationService.getJobConfig(configName),
+                watermarkLow, watermarkHigh, snapshotScn);
     }
 
     /**
      * 資料讀取器
+     * change_detection 啟用時只讀取雜湊值有變更的資料列；
+     * read_mode 為 keyset 時依主鍵分頁讀取並記錄最後鍵值，否則使用單一游標；
+     * 多執行緒模式或啟用預讀 (batch.reader.prefetch.enabled) 時以單一 producer 讀取並放入有界佇列，
+     * 處理執行緒只從佇列取資料；佇列依資料列估計大小限制在 batch.reader.prefetch.max-bytes 以內。
+     * 單執行緒預讀時佇列保存最後一筆交給 step 的資料對應的讀取位置 (例如 keyset 的最後鍵值)，
+     * 多執行緒時不保存，重新啟動由分區起點重讀
      */
     @Bean
-    public ItemReader<OracleEntity> itemReader() {
-        return oracleClobReader;
+    @StepScope
+    public ItemStreamReader<OracleRow> itemReader() {
+        ItemStreamReader<OracleRow> reader;
+        if (migrationPlan.isChangeDetection()) {
+            reader = oracleChangeDetectingReader;
+        } else if (migrationPlan.isKeysetRead()) {
+            reader = oracleKeysetReader;
+        } else {
+            reader = oracleClobReader;
+        }
+        
+        if (workerThreads > 1 || prefetchEnabled) {
+            return new QueueingItemReader<>(reader, readQueueCapacity, prefetchMaxBytes,
+                    OracleRow::estimatedSize, meterRegistry, workerThreads <= 1);
+        }
+        return reader;
     }
 
     /**
      * 資料處理器
      */
     @Bean
-    public ItemProcessor<OracleEntity, MigrationDocument> itemProcessor() {
+    public ItemProcessor<OracleRow, MigrationDocument> itemProcessor() {
         return dataTransformProcessor;
     }
 
     /**
      * 資料寫入器
+     * reactive_write 啟用時以非同步寫入器送出，否則使用 MongoTemplate 寫入器
      */
     @Bean
+    @StepScope
     public ItemWriter<MigrationDocument> itemWriter() {
+        ItemWriter<MigrationDocument> mongoWriter = migrationPlan.isReactiveWrite()
+                ? reactiveMongoDocumentWriter : mongoDocumentWriter;
+        
         if (archiveEnabled) {
             // 使用複合寫入器，同時寫入 MongoDB 和 Oracle 封存表
             CompositeItemWriter<MigrationDocument> compositeWriter = new CompositeItemWriter<>();
-            compositeWriter.setDelegates(Arrays.asList(mongoDocumentWriter, oracleArchiveWriter));
+            compositeWriter.setDelegates(Arrays.asList(mongoWriter, oracleArchiveWriter));
             return compositeWriter;
         } else {
             // 只寫入 MongoDB
-            return mongoDocumentWriter;
+            return mongoWriter;
         }
     }
 
@@ -154,16 +383,29 @@ public class MigrationJobConfig {
     }
 
     /**
-     * 清理步驟
+     * 清理步驟 (master)
+     * 依 partition_mode 以主鍵或 ROWID 範圍分區，各分區平行刪除已遷移的來源資料列；
+     * 以作業參數 jobConfig 指定要清理的遷移配置
      */
     @Bean
     public Step cleanupStep() {
         return new StepBuilder("cleanupStep", jobRepository)
-                .tasklet((contribution, chunkContext) -> {
-                    // 實現清理邏輯
-                    // 例如：刪除已成功遷移的資料
-                    return org.springframework.batch.repeat.RepeatStatus.FINISHED;
-                }, transactionManager)
+                .partitioner("cleanupWorkerStep", oracleSourcePartitioner::partitionRanges)
+                .step(cleanupWorkerStep())
+                .gridSize(gridSize)
+                .taskExecutor(taskExecutor)
+                .listener(stepExecutionListener)
+                .build();
+    }
+
+    /**
+     * 清理步驟 (worker)
+     * 每次執行 tasklet 刪除一批並提交，直到分區處理完畢
+     */
+    @Bean
+    public Step cleanupWorkerStep() {
+        return new StepBuilder("cleanupWorkerStep", jobRepository)
+                .tasklet(sourceCleanupTasklet, transactionManager)
                 .listener(stepExecutionListener)
                 .build();
     }
@@ -176,18 +418,78 @@ public class MigrationJobConfig {
         return new JobBuilder("validationJob", jobRepository)
                 .listener(jobExecutionListener)
                 .start(validationStep())
+                .next(merkleTreeStep())
                 .build();
     }
 
     /**
-     * 驗證步驟
+     * 驗證步驟 (master)
+     * 依主鍵範圍分區，各分區平行比對 Oracle 與 MongoDB 的筆數與聚合雜湊值；
+     * 以作業參數 jobConfig 指定要驗證的遷移配置，已有 Merkle 樹時只比對待驗證的範圍
      */
     @Bean
     public Step validationStep() {
         return new StepBuilder("validationStep", jobRepository)
+                .partitioner("validationWorkerStep", merkleRangePartitioner)
+                .step(validationWorkerStep())
+                .gridSize(gridSize)
+                .taskExecutor(taskExecutor)
+                .listener(stepExecutionListener)
+                .build();
+    }
+
+    /**
+     * 驗證步驟 (worker)
+     * 範圍一致時只執行兩次聚合查詢，不一致時才逐批比對主鍵
+     */
+    @Bean
+    public Step validationWorkerStep() {
+        return new StepBuilder("validationWorkerStep", jobRepository)
+                .tasklet(rangeReconciliationTasklet, transactionManager)
+                .listener(stepExecutionListener)
+                .build();
+    }
+
+    /**
+     * Merkle 樹比對步驟
+     * 由葉節點重建上層節點並比對兩端根節點，根節點不同時回傳不一致的葉節點範圍；
+     * 本次未重新計算的範圍沿用上次的結果，作業結束狀態反映整個資料表；
+     * 範圍都一致但有範圍只比對筆數與主鍵，或有文檔沒有 rangeKey 時，作業結束狀態為 UNVERIFIED
+     */
+    @Bean
+    public Step merkleTreeStep() {
+        return new StepBuilder("merkleTreeStep", jobRepository)
                 .tasklet((contribution, chunkContext) -> {
-                    // 實現驗證邏輯
-                    // 例如：比較 Oracle 和 MongoDB 中的資料數量
+                    List<MigrationMerkleNode> divergent = merkleTreeService.rebuild(migrationPlan.getJobName(),
+                            chunkContext.getStepContext().getStepExecution().getJobExecutionId());
+                    if (!divergent.isEmpty()) {
+                        StringBuilder ranges = new StringBuilder();
+                        for (MigrationMerkleNode leaf : divergent) {
+                            ranges.append(" [").append(leaf.getLowerBound()).append(", ")
+                                    .append(leaf.getUpperBound()).append(")");
+                        }
+                        contribution.setExitStatus(new ExitStatus(RangeReconciliationTasklet.MISMATCH_EXIT_CODE,
+                                divergent.size() + " ranges differ:" + ranges));
+                        return org.springframework.batch.repeat.RepeatStatus.FINISHED;
+                    }
+
+                    List<String> unverified = new ArrayList<>();
+                    int countOnly = RangeReconciliationTasklet.countOnlyRanges(
+                            chunkContext.getStepContext().getStepExecution().getJobExecution().getStepExecutions());
+                    if (countOnly > 0) {
+                        unverified.add(countOnly + " ranges compared counts and keys only, documents have no sourceHash");
+                    }
+                    // 沒有 rangeKey 的文檔不在任何範圍內，另外計數
+                    long withoutRangeKey = batchMongoTemplate.getCollection(migrationPlan.getCollection())
+                            .countDocuments(RangeReconciliationTasklet.withoutRangeKeyFilter());
+                    if (withoutRangeKey > 0) {
+                        unverified.add(withoutRangeKey + " documents have no " + MigrationPlan.RANGE_KEY_FIELD
+                                + " and were not compared");
+                    }
+                    if (!unverified.isEmpty()) {
+                        contribution.setExitStatus(new ExitStatus(RangeReconciliationTasklet.UNVERIFIED_EXIT_CODE,
+                                String.join("; ", unverified)));
+                    }
                     return org.springframework.batch.repeat.RepeatStatus.FINISHED;
                 }, transactionManager)
                 .listener(stepExecutionListener)
@@ -207,16 +509,44 @@ public class MigrationJobConfig {
 
     /**
      * 重試步驟
+     * 只依 dead letter 記錄的主鍵批次讀取來源資料列，經由相同的 processor 與 writer 寫入；
+     * 以作業參數 jobConfig 指定要重試的遷移配置
      */
     @Bean
     public Step retryStep() {
         return new StepBuilder("retryStep", jobRepository)
-                .tasklet((contribution, chunkContext) -> {
-                    // 實現重試邏輯
-                    // 例如：重新處理失敗的資料
-                    return org.springframework.batch.repeat.RepeatStatus.FINISHED;
-                }, transactionManager)
+                .<OracleRow, MigrationDocument>chunk(chunkSize, transactionManager)
+                .reader(deadLetterItemReader)
+                .processor(itemProcessor())
+                .writer(retryWriter())
                 .listener(stepExecutionListener)
+                .faultTolerant()
+                .skipLimit(retrySkipLimit)
+                .skip(Exception.class)
+                .retryLimit(retryLimit)
+                .retry(Exception.class)
+                .listener(deadLetterSkipListener)
                 .build();
     }
+
+    /**
+     * 重試寫入器
+     * 與遷移相同的寫入器寫入成功後，將對應的 dead letter 標記為 RESOLVED
+     */
+    @Bean
+    @StepScope
+    public ItemWriter<MigrationDocument> retryWriter() {
+        ItemWriter<MigrationDocument> resolver = chunk -> {
+            List<String> documentIds = new ArrayList<>(chunk.size());
+            for (MigrationDocument document : chunk) {
+                documentIds.add(document.getId());
+            }
+            deadLetterQueueService.updateStatus(migrationPlan.getJobName(), documentIds,
+                    DeadLetterQueueService.STATUS_RESOLVED);
+        };
+
+        CompositeItemWriter<MigrationDocument> compositeWriter = new CompositeItemWriter<>();
+        compositeWriter.setDelegates(Arrays.asList(itemWriter(), resolver));
+        return compositeWriter;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.migration.batch.listener;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.model.document.MigrationDocument;
+import com.example.migration.model.row.OracleRow;
+import com.example.migration.service.DeadLetterQueueService;
+
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dead letter 監聽器
+ * 遷移與重試步驟中被 skip 的資料列連同失敗原因記錄到 DeadLetterQueueService，
+ * 處理與寫入階段記錄主鍵值供 retryJob 重新讀取；讀取階段失敗沒有主鍵，只保存原因
+ */
+@Component
+public class DeadLetterSkipListener implements SkipListener<OracleRow, MigrationDocument> {
+
+    @Autowired
+    private DeadLetterQueueService deadLetterQueueService;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        deadLetterQueueService.record(migrationPlan.getJobName(), migrationPlan.getQualifiedTable(), null, null,
+                "read", t, jobExecutionId());
+    }
+
+    @Override
+    public void onSkipInProcess(OracleRow item, Throwable t) {
+        deadLetterQueueService.record(migrationPlan.getJobName(), migrationPlan.getQualifiedTable(),
+                migrationPlan.documentId(item), migrationPlan.keyValues(item), "process", t, jobExecutionId());
+    }
+
+    @Override
+    public void onSkipInWrite(MigrationDocument item, Throwable t) {
+        deadLetterQueueService.record(migrationPlan.getJobName(), migrationPlan.getQualifiedTable(),
+                item.getId(), item.getKeyValues(), "write", t, jobExecutionId());
+    }
+
+    private Long jobExecutionId() {
+        return StepSynchronizationManager.getContext().getStepExecution().getJobExecutionId();
+    }
+}
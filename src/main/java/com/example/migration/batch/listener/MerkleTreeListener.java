@@ -0,0 +1,45 @@
+package com.example.migration.batch.listener;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.service.ConfigurationService;
+import com.example.migration.service.MerkleTreeService;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 驗證範圍標記監聽器
+ * 遷移作業成功完成後，將本次寫入過的主鍵範圍在 Merkle 樹中標記為待驗證，
+ * 下次驗證作業只重新計算這些範圍；尚未執行過驗證 (沒有 Merkle 樹) 時不處理
+ */
+@Component
+public class MerkleTreeListener implements org.springframework.batch.core.JobExecutionListener {
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private MerkleTreeService merkleTreeService;
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+            return;
+        }
+
+        String configName = MigrationPlan.configName(jobExecution);
+
+        // 以與讀取時相同的增量範圍與快照 SCN 查詢寫入過的主鍵
+        ExecutionContext context = jobExecution.getExecutionContext();
+        Long snapshotScn = context.containsKey(SnapshotListener.SNAPSHOT_SCN_KEY)
+                ? context.getLong(SnapshotListener.SNAPSHOT_SCN_KEY) : null;
+        MigrationPlan plan = MigrationPlan.from(configName, configurationService.getJobConfig(configName),
+                context.get(WatermarkListener.WATERMARK_LOW_KEY), context.get(WatermarkListener.WATERMARK_HIGH_KEY),
+                snapshotScn);
+
+        merkleTreeService.markTouched(plan);
+    }
+}
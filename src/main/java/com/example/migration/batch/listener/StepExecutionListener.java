@@ -248,7 +248,7 @@ public class StepExecutionListener implements org.springframework.batch.core.Ste
         log.info("步驟成功完成");
         
         // 根據步驟類型執行相應的後續處理
-        String stepName = stepExecution.getStepName();
+        String stepName = baseStepName(stepExecution);
         
         switch (stepName) {
             case "migrationStep":
@@ -286,7 +286,7 @@ public class StepExecutionListener implements org.springframework.batch.core.Ste
         );
         
         // 根據失敗類型決定後續處理
-        String stepName = stepExecution.getStepName();
+        String stepName = baseStepName(stepExecution);
         
         switch (stepName) {
             case "migrationStep":
@@ -306,6 +306,14 @@ public class StepExecutionListener implements org.springframework.batch.core.Ste
         return exitStatus;
     }
 
+    /**
+     * 去除配置作業的步驟名稱前綴 (例如 orders.migrationStep)
+     */
+    private String baseStepName(StepExecution stepExecution) {
+        String stepName = stepExecution.getStepName();
+        return stepName.substring(stepName.lastIndexOf('.') + 1);
+    }
+
     /**
      * 處理停止的步驟
      */
@@ -0,0 +1,93 @@
+package com.example.migration.batch.listener;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.model.dto.JobConfigDTO;
+import com.example.migration.service.ConfigurationService;
+import com.example.migration.service.WatermarkService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * 增量遷移水位監聽器
+ * 作業開始時決定本次讀取範圍 (上次水位, 目前高水位]，並寫入 Job ExecutionContext 供各分區共用；
+ * 作業成功完成後才推進水位，失敗時水位不變，下次執行會重新讀取同一範圍
+ */
+@Component
+public class WatermarkListener implements org.springframework.batch.core.JobExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(WatermarkListener.class);
+
+    /** 本次讀取範圍下界 (不含)，首次執行時不設定 */
+    public static final String WATERMARK_LOW_KEY = "watermark.low";
+
+    /** 本次讀取範圍上界 (含) */
+    public static final String WATERMARK_HIGH_KEY = "watermark.high";
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private WatermarkService watermarkService;
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        String jobName = MigrationPlan.configName(jobExecution);
+        JobConfigDTO.OracleConfig source = configurationService.getJobConfig(jobName).getSource().getOracle();
+        if (source.getWatermarkColumn() == null || source.getWatermarkColumn().isEmpty()) {
+            return;
+        }
+
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (context.containsKey(WATERMARK_HIGH_KEY)) {
+            // 重新啟動時沿用原本的範圍，已提交的分區位置才會一致
+            log.info("增量範圍沿用上次執行: ({}, {}]", context.get(WATERMARK_LOW_KEY), context.get(WATERMARK_HIGH_KEY));
+            return;
+        }
+
+        Object low = watermarkService.getWatermark(jobName, source.getWatermarkColumn());
+        Long snapshotScn = context.containsKey(SnapshotListener.SNAPSHOT_SCN_KEY)
+                ? context.getLong(SnapshotListener.SNAPSHOT_SCN_KEY) : null;
+        Object high;
+        if (WatermarkService.ORA_ROWSCN.equalsIgnoreCase(source.getWatermarkColumn()) && snapshotScn != null) {
+            // 快照讀取時以快照 SCN 作為高水位，讀取範圍與快照一致
+            high = BigDecimal.valueOf(snapshotScn);
+        } else {
+            // 一般欄位在快照讀取時於同一 SCN 取 MAX
+            high = watermarkService.currentHighWatermark(source, snapshotScn);
+        }
+
+        if (low != null) {
+            context.put(WATERMARK_LOW_KEY, low);
+        }
+        if (high != null) {
+            context.put(WATERMARK_HIGH_KEY, high);
+        }
+
+        log.info("增量遷移 {} 依 {} 讀取範圍: ({}, {}]", jobName, source.getWatermarkColumn(), low, high);
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+            return;
+        }
+
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (!context.containsKey(WATERMARK_HIGH_KEY)) {
+            return;
+        }
+
+        String jobName = MigrationPlan.configName(jobExecution);
+        JobConfigDTO.OracleConfig source = configurationService.getJobConfig(jobName).getSource().getOracle();
+        watermarkService.advance(jobName, source.getWatermarkColumn(), context.get(WATERMARK_HIGH_KEY),
+                jobExecution.getId());
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.migration.batch.partition;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.reader.OracleFetchTuner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Oracle 來源資料分區器
+ * 依照第一個主鍵欄位將來源資料表切分為互不重疊的範圍，
+ * 每個範圍以 [lowerBound, upperBound) 寫入 worker step 的 ExecutionContext；
+ * rowid 模式則依資料區段 (extent) 切分為 [rowidStart, rowidEnd] 的 ROWID 範圍
+ */
+@Component
+public class OracleSourcePartitioner implements Partitioner {
+
+    private static final Logger log = LoggerFactory.getLogger(OracleSourcePartitioner.class);
+
+    /** 分區下界 (含)，未設定代表無下界 */
+    public static final String LOWER_BOUND_KEY = "partition.lowerBound";
+
+    /** 分區上界 (不含)，未設定代表無上界 */
+    public static final String UPPER_BOUND_KEY = "partition.upperBound";
+
+    /** ROWID 範圍起點 (含) */
+    public static final String ROWID_START_KEY = "partition.rowidStart";
+
+    /** ROWID 範圍終點 (含) */
+    public static final String ROWID_END_KEY = "partition.rowidEnd";
+
+    /** 分區序號 */
+    public static final String PARTITION_INDEX_KEY = "partition.index";
+
+    private static final String PARTITION_NAME_PREFIX = "partition";
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    // 分區於 master step 執行期間呼叫，取得的是 master step 的遷移計畫
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    private OracleFetchTuner oracleFetchTuner;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> result = partitionRanges(gridSize);
+
+        // 讀取參數只需抽樣一次，由所有分區共用
+        oracleFetchTuner.tune(migrationPlan, result.values());
+        return result;
+    }
+
+    /**
+     * 依 partition_mode 切分，不抽樣調整讀取參數，供不讀取 CLOB 內容的清理作業使用
+     */
+    public Map<String, ExecutionContext> partitionRanges(int gridSize) {
+        // YAML 中的 grid_size 優先於全域設定
+        int partitions = migrationPlan.getGridSize() != null ? migrationPlan.getGridSize() : gridSize;
+        return split(partitions, migrationPlan.getPartitionMode());
+    }
+
+    /**
+     * 依主鍵範圍切分，供需要在 MongoDB 端以相同範圍查詢的驗證作業使用
+     * ROWID 範圍無法對應到 MongoDB 文檔，rowid 與 none 模式改以 key_range 切分；
+     * 範圍數由呼叫端決定，不套用 grid_size
+     */
+    public Map<String, ExecutionContext> partitionByKey(int partitions) {
+        String mode = migrationPlan.getPartitionMode();
+        return split(partitions, "ntile".equals(mode) ? mode : "key_range");
+    }
+
+    private Map<String, ExecutionContext> split(int partitions, String mode) {
+        Map<String, ExecutionContext> result;
+        switch (mode) {
+            case "key_range":
+                result = buildPartitions(keyRangeBoundaries(partitions));
+                break;
+            case "ntile":
+                result = buildPartitions(ntileBoundaries(partitions));
+                break;
+            case "rowid":
+                result = rowidPartitions(partitions);
+                break;
+            default:
+                result = buildPartitions(new ArrayList<>());
+        }
+
+        log.info("來源資料表 {} 以 {} 模式切分為 {} 個分區",
+                migrationPlan.getQualifiedTable(), mode, result.size());
+        return result;
+    }
+
+    /**
+     * 以 MIN/MAX 等距切分數值主鍵
+     * 非數值主鍵無法等距切分，改用 NTILE
+     */
+    private List<Object> keyRangeBoundaries(int partitions) {
+        String keyColumn = migrationPlan.getLeadingKeyColumn();
+        String sql = "SELECT MIN(" + keyColumn + ") AS MIN_KEY, MAX(" + keyColumn + ") AS MAX_KEY FROM "
+                + migrationPlan.getSourceTable()
+                + whereClause();
+
+        Map<String, Object> minMax = new JdbcTemplate(dataSource).queryForMap(sql);
+        Object min = minMax.get("MIN_KEY");
+        Object max = minMax.get("MAX_KEY");
+
+        List<Object> boundaries = new ArrayList<>();
+        if (min == null || max == null) {
+            // 空資料表，只需單一分區
+            return boundaries;
+        }
+
+        if (!(min instanceof Number) || !(max instanceof Number)) {
+            log.warn("主鍵欄位 {} 不是數值型態，改用 NTILE 切分", keyColumn);
+            return ntileBoundaries(partitions);
+        }
+
+        long minValue = ((Number) min).longValue();
+        long maxValue = ((Number) max).longValue();
+        long step = (maxValue - minValue) / partitions + 1;
+
+        for (int i = 1; i < partitions; i++) {
+            long boundary = minValue + step * i;
+            if (boundary > maxValue) {
+                break;
+            }
+            boundaries.add(boundary);
+        }
+
+        return boundaries;
+    }
+
+    /**
+     * 以 NTILE 取得每個分位的起始鍵值
+     * 適用於分布不均或非數值的主鍵
+     */
+    private List<Object> ntileBoundaries(int partitions) {
+        String keyColumn = migrationPlan.getLeadingKeyColumn();
+        String sql = "SELECT MIN(" + keyColumn + ") FROM (SELECT " + keyColumn
+                + ", NTILE(?) OVER (ORDER BY " + keyColumn + ") AS BUCKET FROM "
+                + migrationPlan.getSourceTable()
+                + whereClause()
+                + ") GROUP BY BUCKET ORDER BY BUCKET";
+
+        List<Object> bucketStarts = new JdbcTemplate(dataSource)
+                .query(sql, (rs, rowNum) -> rs.getObject(1), partitions);
+
+        // 第一個分位的起點由無下界的分區涵蓋，重複的起點 (大量相同鍵值) 需合併
+        List<Object> boundaries = new ArrayList<>();
+        for (int i = 1; i < bucketStarts.size(); i++) {
+            Object start = bucketStarts.get(i);
+            Object previous = boundaries.isEmpty() ? bucketStarts.get(0) : boundaries.get(boundaries.size() - 1);
+            if (start != null && !Objects.equals(start, previous)) {
+                boundaries.add(start);
+            }
+        }
+
+        return boundaries;
+    }
+
+    /**
+     * 依 DBA_EXTENTS 的資料區段切分 ROWID 範圍
+     * 將區段依檔案與區塊順序累計區塊數，分成區塊數大致相等的群組，
+     * 與 DBMS_PARALLEL_EXECUTE.CREATE_CHUNKS_BY_ROWID 的切分方式相同，不受鍵值分布影響。
+     * 僅支援非分割 (non-partitioned) 資料表，需有 DBA_EXTENTS 與 DBA_OBJECTS 的查詢權限
+     */
+    private Map<String, ExecutionContext> rowidPartitions(int partitions) {
+        String sql = "SELECT DBMS_ROWID.ROWID_CREATE(1, O.DATA_OBJECT_ID, E.LO_FNO, E.LO_BLOCK, 0) AS ROWID_START, "
+                + "DBMS_ROWID.ROWID_CREATE(1, O.DATA_OBJECT_ID, E.HI_FNO, E.HI_BLOCK, 32767) AS ROWID_END "
+                + "FROM (SELECT DISTINCT GRP, "
+                + "FIRST_VALUE(RELATIVE_FNO) OVER (PARTITION BY GRP ORDER BY RELATIVE_FNO, BLOCK_ID "
+                + "ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) AS LO_FNO, "
+                + "FIRST_VALUE(BLOCK_ID) OVER (PARTITION BY GRP ORDER BY RELATIVE_FNO, BLOCK_ID "
+                + "ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) AS LO_BLOCK, "
+                + "LAST_VALUE(RELATIVE_FNO) OVER (PARTITION BY GRP ORDER BY RELATIVE_FNO, BLOCK_ID "
+                + "ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) AS HI_FNO, "
+                + "LAST_VALUE(BLOCK_ID + BLOCKS - 1) OVER (PARTITION BY GRP ORDER BY RELATIVE_FNO, BLOCK_ID "
+                + "ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) AS HI_BLOCK "
+                + "FROM (SELECT RELATIVE_FNO, BLOCK_ID, BLOCKS, "
+                + "TRUNC((SUM(BLOCKS) OVER (ORDER BY RELATIVE_FNO, BLOCK_ID) - 0.01) "
+                + "/ (SUM(BLOCKS) OVER () / ?)) AS GRP "
+                + "FROM DBA_EXTENTS WHERE OWNER = ? AND SEGMENT_NAME = ? AND SEGMENT_TYPE = 'TABLE')) E, "
+                + "DBA_OBJECTS O "
+                + "WHERE O.OWNER = ? AND O.OBJECT_NAME = ? AND O.OBJECT_TYPE = 'TABLE' "
+                + "ORDER BY E.GRP";
+
+        String owner = migrationPlan.getOwner().toUpperCase();
+        String table = migrationPlan.getTable().toUpperCase();
+
+        List<String[]> ranges = new JdbcTemplate(dataSource).query(sql,
+                (rs, rowNum) -> new String[] { rs.getString("ROWID_START"), rs.getString("ROWID_END") },
+                partitions, owner, table, owner, table);
+
+        if (ranges.isEmpty()) {
+            // 尚未配置區段 (空資料表) 或無權限查詢，退回單一分區
+            log.warn("查無資料表 {}.{} 的 extent 資訊，改用單一分區", owner, table);
+            return buildPartitions(new ArrayList<>());
+        }
+
+        Map<String, ExecutionContext> result = new HashMap<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(PARTITION_INDEX_KEY, i);
+            context.putString(ROWID_START_KEY, ranges.get(i)[0]);
+            context.putString(ROWID_END_KEY, ranges.get(i)[1]);
+            result.put(PARTITION_NAME_PREFIX + i, context);
+        }
+
+        return result;
+    }
+
+    /**
+     * 將邊界值轉換為半開區間分區
+     * 第一個分區無下界、最後一個分區無上界，確保涵蓋所有資料
+     */
+    private Map<String, ExecutionContext> buildPartitions(List<Object> boundaries) {
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+
+        for (int i = 0; i <= boundaries.size(); i++) {
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(PARTITION_INDEX_KEY, i);
+
+            if (i > 0) {
+                context.put(LOWER_BOUND_KEY, boundaries.get(i - 1));
+            }
+            if (i < boundaries.size()) {
+                context.put(UPPER_BOUND_KEY, boundaries.get(i));
+            }
+
+            partitions.put(PARTITION_NAME_PREFIX + i, context);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * 來源資料過濾條件
+     */
+    private String whereClause() {
+        if (migrationPlan.getWhereCondition() != null) {
+            return " WHERE " + migrationPlan.getWhereCondition();
+        }
+        return "";
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.migration.batch.plan;
+
+import com.example.migration.model.dto.JobConfigDTO;
+import com.example.migration.model.dto.JobConfigDTO.ArchiveConfig;
+import com.example.migration.model.dto.JobConfigDTO.MongodbConfig;
+import com.example.migration.model.dto.JobConfigDTO.OracleConfig;
+import com.example.migration.model.row.OracleRow;
+
+import org.bson.types.Decimal128;
+
+import org.springframework.batch.core.JobExecution;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 遷移計畫
+ * 每個 step 執行時由作業配置解析一次的不可變物件，
+ * 由 reader、processor、writer 共用，處理過程中不再查詢 ConfigurationService。
+ * 以 step scope 代理注入，因此類別與方法不可為 final
+ */
+public class MigrationPlan {
+
+    /**
+     * 指定作業配置名稱的作業參數
+     * 驗證、清理等作業以此參數指定要處理的遷移配置，未指定時使用作業名稱
+     */
+    public static final String JOB_CONFIG_PARAMETER = "jobConfig";
+
+    /** 文檔上保存第一個主鍵欄位原生型態值的欄位，驗證依主鍵範圍查詢時使用此欄位的索引 */
+    public static final String RANGE_KEY_FIELD = "rangeKey";
+
+    /** 全量重載時暫存集合的名稱後綴 */
+    public static final String STAGING_SUFFIX = "_staging";
+
+    private final String jobName;
+
+    // 來源
+    private final String owner;
+    private final String table;
+    private final String qualifiedTable;
+    private final List<String> keyColumns;
+    private final List<String> clobColumns;
+    private final String selectColumns;
+    private final String sourceHashExpression;
+    private final String whereCondition;
+    private final String partitionMode;
+    private final Integer gridSize;
+    private final String jsonMode;
+    private final String readMode;
+    private final Integer pageSize;
+
+    // 增量範圍 (watermarkLow, watermarkHigh]
+    private final String watermarkColumn;
+    private final Object watermarkLow;
+    private final Object watermarkHigh;
+
+    private final boolean changeDetection;
+
+    // 一致性快照
+    private final Long snapshotScn;
+    private final String sourceTable;
+
+    // 目標
+    private final String collection;
+    private final boolean stagedReload;
+    private final String stagingCollection;
+    private final String writeMode;
+    private final boolean rawBson;
+    private final boolean reactiveWrite;
+
+    // 封存
+    private final boolean archiveEnabled;
+    private final String archiveTable;
+    private final Integer archiveBatchSize;
+    private final boolean archiveDirectPath;
+
+    protected MigrationPlan(String jobName, JobConfigDTO config, Object watermarkLow, Object watermarkHigh,
+                            Long snapshotScn, boolean directUpsert) {
+        OracleConfig source = config.getSource().getOracle();
+        MongodbConfig target = config.getTarget().getMongodb();
+        ArchiveConfig archive = config.getArchive();
+
+        this.jobName = jobName;
+
+        this.owner = source.getOwner();
+        this.table = source.getTable();
+        this.qualifiedTable = source.getOwner() + "." + source.getTable();
+        this.keyColumns = Collections.unmodifiableList(new ArrayList<>(source.getKeyColumns()));
+        this.clobColumns = Collections.unmodifiableList(new ArrayList<>(source.getClobColumns()));
+
+        this.jsonMode = source.getJsonMode() != null ? source.getJsonMode() : "text";
+
+        // oson 模式將 IS JSON 的 CLOB 或原生 JSON 欄位以 JSON 型態取回 (Oracle 21c 以上)，保留原欄位名稱
+        boolean oson = "oson".equals(jsonMode);
+        List<String> columns = new ArrayList<>(keyColumns);
+        for (String clobColumn : clobColumns) {
+            columns.add(oson
+                    ? "JSON_QUERY(" + clobColumn + ", '$' RETURNING JSON ERROR ON ERROR) AS " + clobColumn
+                    : clobColumn);
+        }
+        this.selectColumns = String.join(", ", columns);
+
+        // 各 CLOB 欄位以 DBMS_CRYPTO.HASH (SHA-256) 計算後串接，再以 STANDARD_HASH 合併為單一雜湊值；
+        // oson 模式下原生 JSON 欄位先序列化為 CLOB 再計算
+        List<String> hashParts = new ArrayList<>();
+        for (String clobColumn : clobColumns) {
+            String content = oson ? "JSON_SERIALIZE(" + clobColumn + " RETURNING CLOB)" : clobColumn;
+            hashParts.add("CASE WHEN " + clobColumn + " IS NULL THEN 'NULL' "
+                    + "ELSE RAWTOHEX(DBMS_CRYPTO.HASH(" + content + ", 4)) END");
+        }
+        this.sourceHashExpression = "RAWTOHEX(STANDARD_HASH(" + String.join(" || '|' || ", hashParts) + ", 'SHA256'))";
+
+        this.whereCondition = source.getWhereCondition() != null && !source.getWhereCondition().isEmpty()
+                ? source.getWhereCondition() : null;
+        this.partitionMode = source.getPartitionMode() != null ? source.getPartitionMode() : "none";
+        this.gridSize = source.getGridSize();
+        this.readMode = source.getReadMode() != null ? source.getReadMode() : "cursor";
+        this.pageSize = source.getPageSize();
+
+        this.watermarkColumn = source.getWatermarkColumn() != null && !source.getWatermarkColumn().isEmpty()
+                ? source.getWatermarkColumn() : null;
+        this.watermarkLow = this.watermarkColumn != null ? watermarkLow : null;
+        this.watermarkHigh = this.watermarkColumn != null ? watermarkHigh : null;
+
+        this.changeDetection = source.isChangeDetection();
+
+        this.snapshotScn = source.isSnapshotRead() ? snapshotScn : null;
+        this.sourceTable = this.snapshotScn != null
+                ? qualifiedTable + " AS OF SCN " + this.snapshotScn
+                : qualifiedTable;
+
+        this.collection = target.getCollection();
+        this.stagedReload = !directUpsert && target.isChangeCollection();
+        this.stagingCollection = target.getCollection() + STAGING_SUFFIX;
+        this.writeMode = !directUpsert && target.getWriteMode() != null ? target.getWriteMode() : "upsert";
+        this.rawBson = target.isRawBson();
+        this.reactiveWrite = target.isReactiveWrite();
+
+        this.archiveEnabled = archive != null && archive.isEnabled();
+        this.archiveTable = archive != null ? archive.getTargetTable() : null;
+        this.archiveBatchSize = archive != null ? archive.getBatchSize() : null;
+        this.archiveDirectPath = archive != null && archive.isDirectPath();
+    }
+
+    /**
+     * 作業使用的配置名稱：作業參數 jobConfig，未指定時為作業名稱
+     */
+    public static String configName(JobExecution jobExecution) {
+        return jobExecution.getJobParameters().getString(JOB_CONFIG_PARAMETER,
+                jobExecution.getJobInstance().getJobName());
+    }
+
+    /**
+     * 由作業配置建立遷移計畫
+     */
+    public static MigrationPlan from(String jobName, JobConfigDTO config) {
+        return new MigrationPlan(jobName, config, null, null, null, false);
+    }
+
+    /**
+     * 由作業配置、本次增量範圍與快照 SCN 建立遷移計畫
+     */
+    public static MigrationPlan from(String jobName, JobConfigDTO config, Object watermarkLow, Object watermarkHigh,
+                                     Long snapshotScn) {
+        return new MigrationPlan(jobName, config, watermarkLow, watermarkHigh, snapshotScn, false);
+    }
+
+    /**
+     * 建立遷移作業以外 (重試、驗證、清理) 使用的計畫
+     * 忽略 change_collection 與 write_mode，寫入器一律以 upsert 寫入目標集合，
+     * 避免集合置換後寫入已不再使用的暫存集合
+     */
+    public static MigrationPlan forMaintenance(String jobName, JobConfigDTO config) {
+        return new MigrationPlan(jobName, config, null, null, null, true);
+    }
+
+    /**
+     * 依主鍵欄位產生文檔 ID，多個主鍵以底線串接
+     * 查詢欄位以主鍵欄位開頭，主鍵值即為資料列的前幾個欄位
+     */
+    public String documentId(OracleRow row) {
+        return documentId(keyValues(row));
+    }
+
+    /**
+     * 資料列的主鍵值 (依 key_columns 順序)
+     */
+    public Object[] keyValues(OracleRow row) {
+        Object[] keyValues = new Object[keyColumns.size()];
+        for (int i = 0; i < keyValues.length; i++) {
+            keyValues[i] = row.getValue(i);
+        }
+        return keyValues;
+    }
+
+    /**
+     * 資料列第一個主鍵欄位的範圍查詢值
+     */
+    public Object rangeKey(OracleRow row) {
+        return rangeKeyValue(row.getValue(0));
+    }
+
+    /**
+     * 將主鍵值或分區邊界轉為 MongoDB 可依數值順序比較的原生型態
+     * data 中的 NUMBER 主鍵以字串保存，只能依字典順序比較，數值一律轉為 Decimal128
+     */
+    public static Object rangeKeyValue(Object value) {
+        if (value instanceof Number) {
+            return new Decimal128(new BigDecimal(value.toString()));
+        }
+        return value;
+    }
+
+    /**
+     * 依主鍵值 (依 key_columns 順序) 產生文檔 ID
+     */
+    public String documentId(Object[] keyValues) {
+        StringBuilder id = new StringBuilder();
+        for (Object value : keyValues) {
+            if (value != null) {
+                id.append(value.toString()).append("_");
+            }
+        }
+
+        // 移除最後的底線
+        if (id.length() > 0) {
+            id.setLength(id.length() - 1);
+        }
+
+        return id.toString();
+    }
+
+    /**
+     * 第一個主鍵欄位，用於排序與分區
+     */
+    public String getLeadingKeyColumn() {
+        return keyColumns.get(0);
+    }
+
+    public boolean isStreamingJson() {
+        return "stream".equals(jsonMode);
+    }
+
+    public boolean isOsonJson() {
+        return "oson".equals(jsonMode);
+    }
+
+    public boolean isKeysetRead() {
+        return "keyset".equals(readMode);
+    }
+
+    public boolean isIncremental() {
+        return watermarkColumn != null;
+    }
+
+    /**
+     * 是否以 insert 寫入空集合 (initial_load 或全量重載的暫存集合)
+     */
+    public boolean isInitialLoad() {
+        return stagedReload || "initial_load".equals(writeMode);
+    }
+
+    /**
+     * 寫入器實際寫入的集合，全量重載時為暫存集合
+     */
+    public String getTargetCollection() {
+        return stagedReload ? stagingCollection : collection;
+    }
+
+    /**
+     * 是否由 processor 預先編碼為 RawBsonDocument (raw_bson 或非同步寫入)
+     */
+    public boolean isPreEncoded() {
+        return rawBson || reactiveWrite;
+    }
+
+    // Getters
+    public String getJobName() { return jobName; }
+
+    public String getOwner() { return owner; }
+
+    public String getTable() { return table; }
+
+    public String getQualifiedTable() { return qualifiedTable; }
+
+    /**
+     * 查詢用的來源資料表，啟用快照讀取時附加 AS OF SCN
+     * SCN 為作業開始時由資料庫取得的數值，直接寫入語法而非綁定，同一次執行的所有查詢語法相同
+     */
+    public String getSourceTable() { return sourceTable; }
+
+    public List<String> getKeyColumns() { return keyColumns; }
+
+    public List<String> getClobColumns() { return clobColumns; }
+
+    public String getSelectColumns() { return selectColumns; }
+
+    /**
+     * 來源內容雜湊值的 SQL 運算式 (64 位十六進位大寫字串)
+     * CLOB 內容只在資料庫端讀取，不經過網路，需要 DBMS_CRYPTO 的執行權限
+     */
+    public String getSourceHashExpression() { return sourceHashExpression; }
+
+    public String getWhereCondition() { return whereCondition; }
+
+    public String getPartitionMode() { return partitionMode; }
+
+    public Integer getGridSize() { return gridSize; }
+
+    public String getJsonMode() { return jsonMode; }
+
+    public String getReadMode() { return readMode; }
+
+    public Integer getPageSize() { return pageSize; }
+
+    public String getWatermarkColumn() { return watermarkColumn; }
+
+    public Object getWatermarkLow() { return watermarkLow; }
+
+    public Object getWatermarkHigh() { return watermarkHigh; }
+
+    public boolean isChangeDetection() { return changeDetection; }
+
+    public Long getSnapshotScn() { return snapshotScn; }
+
+    public String getCollection() { return collection; }
+
+    public boolean isStagedReload() { return stagedReload; }
+
+    public String getStagingCollection() { return stagingCollection; }
+
+    public String getWriteMode() { return writeMode; }
+
+    public boolean isRawBson() { return rawBson; }
+
+    public boolean isReactiveWrite() { return reactiveWrite; }
+
+    public boolean isArchiveEnabled() { return archiveEnabled; }
+
+    public String getArchiveTable() { return archiveTable; }
+
+    public Integer getArchiveBatchSize() { return archiveBatchSize; }
+
+    public boolean isArchiveDirectPath() { return archiveDirectPath; }
+
+    @Override
+    public String toString() {
+        return "MigrationPlan{" +
+                "jobName='" + jobName + '\'' +
+                ", table='" + qualifiedTable + '\'' +
+                ", keyColumns=" + keyColumns +
+                ", partitionMode='" + partitionMode + '\'' +
+                ", readMode='" + readMode + '\'' +
+                ", snapshotScn=" + snapshotScn +
+                ", watermark=" + (watermarkColumn != null
+                        ? watermarkColumn + " (" + watermarkLow + ", " + watermarkHigh + "]" : "none") +
+                ", collection='" + collection + '\'' +
+                ", writeMode='" + writeMode + '\'' +
+                ", stagedReload=" + stagedReload +
+                ", rawBson=" + rawBson +
+                ", reactiveWrite=" + reactiveWrite +
+                '}';
+    }
+}
@@ -1,40 +1,41 @@
 package com.example.migration.batch.processor;
 
-import com.example.migration.batch.listener.StepExecutionListener;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.support.GridFsSpillover;
+import com.example.migration.batch.support.MigrationDocumentEncoder;
 import com.example.migration.model.document.MigrationDocument;
-import com.example.migration.model.dto.JobConfigDTO;
-import com.example.migration.model.entity.OracleEntity;
-import com.example.migration.service.ConfigurationService;
+import com.example.migration.model.row.OracleRow;
+import com.example.migration.model.row.RowSchema;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
  * 資料轉換處理器
- * 將 Oracle 實體轉換為 MongoDB 文檔
+ * 將 Oracle 資料列轉換為 MongoDB 文檔
  */
 @Component
-public class DataTransformProcessor implements ItemProcessor<OracleEntity, MigrationDocument> {
+public class DataTransformProcessor implements ItemProcessor<OracleRow, MigrationDocument> {
 
     @Autowired
-    private ConfigurationService configurationService;
+    private MigrationPlan migrationPlan;
 
     @Autowired
     private ObjectMapper objectMapper;
-    
+
     @Autowired
-    private StepExecutionListener stepExecutionListener;
+    private GridFsSpillover gridFsSpillover;
+
+    private final MigrationDocumentEncoder documentEncoder = new MigrationDocumentEncoder();
 
     @Override
-    public MigrationDocument process(OracleEntity item) throws Exception {
+    public MigrationDocument process(OracleRow item) throws Exception {
         if (item == null) {
             return null;
         }
@@ -42,68 +43,45 @@ public class DataTransformProcessor implements ItemProcessor<OracleEntity, Migra
         MigrationDocument document = new MigrationDocument();
         
         // 設置基本資訊
-        document.setSourceTable(getSourceTableName());
+        document.setSourceTable(migrationPlan.getTable());
         document.setMigrationTime(LocalDateTime.now());
         document.setVersion("1.0");
+        document.setSourceHash(item.getSourceHash());
         
         // 轉換資料
         Map<String, Object> data = transformData(item);
         document.setData(data);
         
         // 生成文檔 ID
-        document.setId(generateDocumentId(item));
-        
-        return document;
-    }
-
-    private String generateDocumentId(OracleEntity entity) {
-    	// 從 Listener 中取出 StepExecution
-        StepExecution stepExecution = stepExecutionListener.getStepExecution();
-
-        // 取得當前 Job 名稱
-        String jobName = stepExecution
-                            .getJobExecution()
-                            .getJobInstance()
-                            .getJobName();
-        
-    	JobConfigDTO config = configurationService.getJobConfig(jobName);
-    	List<String> keyColumns = config.getSource().getOracle().getKeyColumns();
+        document.setId(migrationPlan.documentId(item));
+        document.setKeyValues(migrationPlan.keyValues(item));
+        document.setRangeKey(migrationPlan.rangeKey(item));
         
-        StringBuilder id = new StringBuilder();
-        for (String keyColumn : keyColumns) {
-            Object value = entity.getField(keyColumn);
-            if (value != null) {
-                id.append(value.toString()).append("_");
-            }
+        // 編碼後超過 16MB 的文檔將最大的欄位移至 GridFS，避免寫入失敗耗盡 skip 額度
+        if (gridFsSpillover.isEnabled()) {
+            gridFsSpillover.spillOversizedFields(document, documentEncoder);
         }
         
-        // 移除最後的底線
-        if (id.length() > 0) {
-            id.setLength(id.length() - 1);
+        // raw_bson 與非同步寫入模式在處理執行緒完成 BSON 編碼，寫入執行緒只負責送出
+        if (migrationPlan.isPreEncoded()) {
+            document.setEncoded(migrationPlan.isInitialLoad()
+                    ? documentEncoder.encodeDocument(document)
+                    : documentEncoder.encodeSetUpdate(document));
         }
         
-        return id.toString();
-    }
-
-    private String getSourceTableName() {
-    	// 從 Listener 中取出 StepExecution
-        StepExecution stepExecution = stepExecutionListener.getStepExecution();
-
-        // 取得當前 Job 名稱
-        String jobName = stepExecution
-                            .getJobExecution()
-                            .getJobInstance()
-                            .getJobName();
-        
-    	JobConfigDTO config = configurationService.getJobConfig(jobName);
-        return config.getSource().getOracle().getTable();
+        return document;
     }
 
-    private Map<String, Object> transformData(OracleEntity entity) {
-        Map<String, Object> data = new HashMap<>();
+    private Map<String, Object> transformData(OracleRow row) {
+        RowSchema schema = row.getSchema();
+        int columnCount = row.size();
+        Map<String, Object> data = new HashMap<>(columnCount * 2);
         
-        // 複製所有欄位
-        entity.getFields().forEach((key, value) -> {
+        // 依索引複製所有欄位
+        for (int i = 0; i < columnCount; i++) {
+            String key = schema.getColumnName(i);
+            Object value = row.getValue(i);
+            
             // 處理特殊資料類型
             if (value instanceof String) {
                 String strValue = (String) value;
@@ -120,9 +98,10 @@ public class DataTransformProcessor implements ItemProcessor<OracleEntity, Migra
                     data.put(key, strValue);
                 }
             } else {
+                // stream / oson 模式下 JSON 已在讀取時轉為 BSON 值，不需再次解析
                 data.put(key, value);
             }
-        });
+        }
         
         return data;
     }
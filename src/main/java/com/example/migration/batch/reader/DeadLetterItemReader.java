@@ -0,0 +1,133 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.support.GridFsSpillover;
+import com.example.migration.model.row.OracleRow;
+import com.example.migration.service.DeadLetterQueueService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dead letter 重試讀取器
+ * 依 _id 順序每次讀取 1000 筆 PENDING 記錄，以 OracleRowLookup 的 IN 清單一次查詢對應的來源資料列，
+ * 不需掃描整個來源資料表；來源已不存在的記錄標記為 SOURCE_MISSING。
+ * 寫入成功的記錄由重試步驟標記為 RESOLVED，不再是 PENDING，
+ * 重新啟動時直接重新查詢 PENDING 記錄即可接續，不需保存讀取位置
+ */
+@Component
+@StepScope
+public class DeadLetterItemReader implements ItemStreamReader<OracleRow> {
+
+    private static final Logger log = LoggerFactory.getLogger(DeadLetterItemReader.class);
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GridFsSpillover gridFsSpillover;
+
+    @Autowired
+    private DeadLetterQueueService deadLetterQueueService;
+
+    private OracleRowLookup rowLookup;
+
+    private final Deque<OracleRow> rows = new ArrayDeque<>();
+
+    /** 本次執行已讀取的最後一筆記錄，再次失敗的記錄不會在同一次執行中重複讀取 */
+    private String lastId;
+
+    private boolean exhausted;
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        rowLookup = new OracleRowLookup(new JdbcTemplate(dataSource), migrationPlan,
+                OracleRowMapper.forPlan(migrationPlan, objectMapper, gridFsSpillover));
+        rows.clear();
+        lastId = null;
+        exhausted = false;
+
+        log.info("Retrying {} dead letters of job {}", deadLetterQueueService.countPending(migrationPlan.getJobName()),
+                migrationPlan.getJobName());
+    }
+
+    @Override
+    public OracleRow read() throws Exception {
+        while (rows.isEmpty()) {
+            if (exhausted || !fetchBatch()) {
+                return null;
+            }
+        }
+        return rows.poll();
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        rows.clear();
+    }
+
+    /**
+     * 讀取下一批記錄與對應的來源資料列，沒有更多記錄時回傳 false
+     */
+    private boolean fetchBatch() {
+        List<Document> deadLetters = deadLetterQueueService.findPending(migrationPlan.getJobName(), lastId,
+                OracleRowLookup.MAX_IN_LIST_SIZE);
+        if (deadLetters.isEmpty()) {
+            exhausted = true;
+            return false;
+        }
+        lastId = deadLetters.get(deadLetters.size() - 1).getString("_id");
+        exhausted = deadLetters.size() < OracleRowLookup.MAX_IN_LIST_SIZE;
+
+        List<Object[]> keys = new ArrayList<>(deadLetters.size());
+        for (Document deadLetter : deadLetters) {
+            keys.add(DeadLetterQueueService.keyValues(deadLetter));
+        }
+
+        Set<String> found = new HashSet<>();
+        for (OracleRow row : rowLookup.fetchByKeys(keys)) {
+            found.add(migrationPlan.documentId(row));
+            rows.add(row);
+        }
+
+        List<String> missing = new ArrayList<>();
+        for (Document deadLetter : deadLetters) {
+            String documentId = deadLetter.getString("documentId");
+            if (!found.contains(documentId)) {
+                missing.add(documentId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            deadLetterQueueService.updateStatus(migrationPlan.getJobName(), missing,
+                    DeadLetterQueueService.STATUS_SOURCE_MISSING);
+            log.info("{} dead letters of job {} no longer exist in the source", missing.size(),
+                    migrationPlan.getJobName());
+        }
+        return true;
+    }
+}
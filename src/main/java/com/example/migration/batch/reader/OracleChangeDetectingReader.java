@@ -0,0 +1,214 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.support.GridFsSpillover;
+import com.example.migration.model.row.OracleRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 變更偵測讀取器
+ * 先以游標只讀取主鍵與 Oracle 端計算的 CLOB 雜湊值，每批與 MongoDB 文檔的 sourceHash 比對，
+ * 只有雜湊值不同 (或尚未遷移) 的資料列才以主鍵查詢完整的 CLOB 內容，
+ * 網路傳輸與 MongoDB 寫入量只與變更的資料量相關。
+ * 需要 DBMS_CRYPTO 的執行權限。
+ * 不保存讀取位置：重新啟動時重新掃描主鍵，已寫入的資料列雜湊值相同會直接略過
+ */
+@Component
+@StepScope
+public class OracleChangeDetectingReader implements ItemStreamReader<OracleRow> {
+
+    private static final Logger log = LoggerFactory.getLogger(OracleChangeDetectingReader.class);
+
+    /** 雜湊值欄位別名 */
+    private static final String SOURCE_HASH_COLUMN = "SOURCE_HASH";
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GridFsSpillover gridFsSpillover;
+
+    @Value("${batch.reader.page-size:1000}")
+    private int defaultPageSize;
+
+    private JdbcCursorItemReader<OracleRow> keyReader;
+
+    private OracleRowLookup rowLookup;
+
+    private int batchSize;
+
+    private final Deque<OracleRow> changedRows = new ArrayDeque<>();
+
+    private long scannedCount;
+
+    private long changedCount;
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        batchSize = migrationPlan.getPageSize() != null ? migrationPlan.getPageSize() : defaultPageSize;
+
+        List<Object> arguments = new ArrayList<>();
+        String sql = buildKeySql(executionContext, arguments);
+
+        keyReader = new JdbcCursorItemReaderBuilder<OracleRow>()
+                .name("oracleKeyHashReader")
+                .dataSource(dataSource)
+                .sql(sql)
+                .queryArguments(arguments)
+                .rowMapper(new OracleRowMapper(null, null))
+                .fetchSize(batchSize)
+                .saveState(false)
+                .build();
+        keyReader.open(executionContext);
+
+        // 主鍵游標不含 CLOB，讀取參數只套用在查詢完整資料列的 IN 清單查詢
+        JdbcTemplate jdbcTemplate = OracleFetchTuner.jdbcTemplate(dataSource, executionContext,
+                OracleRowLookup.MAX_IN_LIST_SIZE);
+        rowLookup = new OracleRowLookup(jdbcTemplate, migrationPlan,
+                OracleRowMapper.forPlan(migrationPlan, objectMapper, gridFsSpillover));
+
+        changedRows.clear();
+        scannedCount = 0;
+        changedCount = 0;
+    }
+
+    @Override
+    public OracleRow read() throws Exception {
+        while (changedRows.isEmpty()) {
+            if (!fetchChangedBatch()) {
+                return null;
+            }
+        }
+        return changedRows.poll();
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        // 不保存讀取位置
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (keyReader != null) {
+            keyReader.close();
+        }
+        changedRows.clear();
+        log.info("Change detection on {}: scanned={}, changed={}",
+                migrationPlan.getQualifiedTable(), scannedCount, changedCount);
+    }
+
+    /**
+     * 讀取下一批主鍵與雜湊值，查詢有變更的完整資料列
+     *
+     * @return 主鍵游標已讀完時回傳 false
+     */
+    private boolean fetchChangedBatch() throws Exception {
+        Map<String, String> sourceHashes = new HashMap<>();
+        Map<String, Object[]> keysById = new HashMap<>();
+
+        OracleRow keyRow;
+        while (sourceHashes.size() < batchSize && (keyRow = keyReader.read()) != null) {
+            String id = migrationPlan.documentId(keyRow);
+            sourceHashes.put(id, keyRow.getString(migrationPlan.getKeyColumns().size()));
+            keysById.put(id, keyOf(keyRow));
+        }
+
+        if (sourceHashes.isEmpty()) {
+            return false;
+        }
+        scannedCount += sourceHashes.size();
+
+        Map<String, String> targetHashes = findTargetHashes(sourceHashes.keySet());
+
+        List<Object[]> changedKeys = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sourceHashes.entrySet()) {
+            if (!Objects.equals(entry.getValue(), targetHashes.get(entry.getKey()))) {
+                changedKeys.add(keysById.get(entry.getKey()));
+            }
+        }
+
+        for (OracleRow row : rowLookup.fetchByKeys(changedKeys)) {
+            changedRows.add(row.withSourceHash(sourceHashes.get(migrationPlan.documentId(row))));
+        }
+        changedCount += changedKeys.size();
+
+        return true;
+    }
+
+    /**
+     * 以一次 $in 查詢取得 MongoDB 文檔上的雜湊值
+     */
+    private Map<String, String> findTargetHashes(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("sourceHash");
+
+        Map<String, String> hashes = new HashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, migrationPlan.getCollection())) {
+            hashes.put(String.valueOf(document.get("_id")), document.getString("sourceHash"));
+        }
+        return hashes;
+    }
+
+    private Object[] keyOf(OracleRow row) {
+        Object[] key = new Object[migrationPlan.getKeyColumns().size()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = row.getValue(i);
+        }
+        return key;
+    }
+
+    private String buildKeySql(ExecutionContext executionContext, List<Object> arguments) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", migrationPlan.getKeyColumns()))
+                .append(", ").append(migrationPlan.getSourceHashExpression()).append(" AS ").append(SOURCE_HASH_COLUMN)
+                .append(" FROM ").append(migrationPlan.getSourceTable());
+
+        OracleSourceQuery.appendWhere(sql,
+                OracleSourceQuery.conditions(migrationPlan, executionContext, arguments));
+
+        if (!OracleSourceQuery.isRowidRange(executionContext)) {
+            sql.append(" ORDER BY ").append(migrationPlan.getLeadingKeyColumn());
+        }
+
+        return sql.toString();
+    }
+}
@@ -1,131 +1,121 @@
 package com.example.migration.batch.reader;
 
-import com.example.migration.batch.listener.StepExecutionListener;
-import com.example.migration.model.dto.JobConfigDTO;
-import com.example.migration.model.dto.JobConfigDTO.OracleConfig;
-import com.example.migration.model.entity.OracleEntity;
-import com.example.migration.service.ConfigurationService;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.support.GridFsSpillover;
+import com.example.migration.model.row.OracleRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import oracle.jdbc.OracleStatement;
 
-import org.springframework.batch.core.StepExecution;
-import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.database.JdbcCursorItemReader;
-import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
-import java.sql.ResultSet;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Oracle CLOB 資料讀取器
  * 從 Oracle 資料庫讀取 CLOB 資料
+ * 每個分區 (worker step) 各自建立一個實例，只讀取分區範圍內的資料；
+ * fetch size 與 LOB 預取大小由 OracleFetchTuner 調整後寫入分區的 ExecutionContext
  */
 @Component
-public class OracleClobReader implements ItemReader<OracleEntity> {
+@StepScope
+public class OracleClobReader implements ItemStreamReader<OracleRow> {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
 
     @Autowired
     @Qualifier("oracleDataSource")
     private DataSource dataSource;
 
     @Autowired
-    private ConfigurationService configurationService;
-    
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
-    private StepExecutionListener stepExecutionListener;
+    private GridFsSpillover gridFsSpillover;
 
-    private JdbcCursorItemReader<OracleEntity> delegate;
-    private boolean initialized = false;
+    private JdbcCursorItemReader<OracleRow> delegate;
 
     @Override
-    public OracleEntity read() throws Exception {
-        if (!initialized) {
-            initialize();
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        List<Object> arguments = new ArrayList<>();
+        String sql = buildSql(executionContext, arguments);
+        
+        int fetchSize = executionContext.getInt(OracleFetchTuner.FETCH_SIZE_KEY, DEFAULT_FETCH_SIZE);
+        int lobPrefetchSize = executionContext.getInt(OracleFetchTuner.LOB_PREFETCH_SIZE_KEY, 0);
+        
+        delegate = new JdbcCursorItemReader<>() {
+            @Override
+            protected void applyStatementSettings(PreparedStatement stmt) throws SQLException {
+                super.applyStatementSettings(stmt);
+                if (lobPrefetchSize > 0) {
+                    // CLOB 內容在預取大小以內時隨資料列傳回，不需再以 locator 往返讀取
+                    stmt.unwrap(OracleStatement.class).setLobPrefetchSize(lobPrefetchSize);
+                }
+            }
+        };
+        delegate.setName("oracleClobReader");
+        delegate.setDataSource(dataSource);
+        delegate.setSql(sql);
+        delegate.setPreparedStatementSetter(new ArgumentPreparedStatementSetter(arguments.toArray()));
+        delegate.setRowMapper(OracleRowMapper.forPlan(migrationPlan, objectMapper, gridFsSpillover));
+        delegate.setFetchSize(fetchSize);
+        // ROWID 範圍不排序，重新啟動時略過 read.count 筆不保證是同一批資料列；
+        // 不保存讀取位置，分區重新啟動時從頭讀取，upsert 與 insert (重複鍵視為成功) 寫入的結果相同
+        delegate.setSaveState(!OracleSourceQuery.isRowidRange(executionContext));
+        
+        try {
+            delegate.afterPropertiesSet();
+        } catch (Exception e) {
+            throw new ItemStreamException("Failed to initialize cursor reader", e);
         }
+        
+        delegate.open(executionContext);
+    }
+
+    @Override
+    public OracleRow read() throws Exception {
         return delegate.read();
     }
 
-    private void initialize() throws Exception {
-        String sql = buildSql();
-        
-        delegate = new JdbcCursorItemReaderBuilder<OracleEntity>()
-                .name("oracleClobReader")
-                .dataSource(dataSource)
-                .sql(sql)
-                .rowMapper(new OracleEntityRowMapper())
-                .fetchSize(1000)
-                .build();
-        
-        delegate.afterPropertiesSet();
-        initialized = true;
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
     }
 
-    private String buildSql() {
-    	// 從 Listener 中取出 StepExecution
-        StepExecution stepExecution = stepExecutionListener.getStepExecution();
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
 
-        // 取得當前 Job 名稱
-        String jobName = stepExecution
-                            .getJobExecution()
-                            .getJobInstance()
-                            .getJobName();
-        
-    	JobConfigDTO config = configurationService.getJobConfig(jobName);
-    	OracleConfig sourceConfig = config.getSource().getOracle();
-        
-        StringBuilder sql = new StringBuilder("SELECT ");
-        
-        // 添加 key columns
-        List<String> keyColumns = sourceConfig.getKeyColumns();
-        keyColumns.forEach(col -> sql.append(col).append(", "));
-        
-        // 添加 CLOB columns
-        List<String> clobColumns = sourceConfig.getClobColumns();
-        clobColumns.forEach(col -> sql.append(col).append(", "));
+    private String buildSql(ExecutionContext executionContext, List<Object> arguments) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(migrationPlan.getSelectColumns())
+                .append(" FROM ").append(migrationPlan.getSourceTable());
         
-        // 移除最後的逗號
-        sql.setLength(sql.length() - 2);
+        OracleSourceQuery.appendWhere(sql,
+                OracleSourceQuery.conditions(migrationPlan, executionContext, arguments));
         
-        sql.append(" FROM ").append(sourceConfig.getOwner())
-           .append(".").append(sourceConfig.getTable());
-        
-        // 添加 WHERE 條件
-        if (sourceConfig.getWhereCondition() != null && !sourceConfig.getWhereCondition().isEmpty()) {
-            sql.append(" WHERE ").append(sourceConfig.getWhereCondition());
+        // ROWID 範圍以區塊順序掃描，不排序以保留全表掃描式的循序 I/O，因此不保存讀取位置
+        if (!OracleSourceQuery.isRowidRange(executionContext)) {
+            sql.append(" ORDER BY ").append(migrationPlan.getLeadingKeyColumn());
         }
         
-        sql.append(" ORDER BY ").append(keyColumns.get(0));
-        
         return sql.toString();
     }
-
-    /**
-     * Oracle Entity Row Mapper
-     */
-    private static class OracleEntityRowMapper implements RowMapper<OracleEntity> {
-        @Override
-        public OracleEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
-            OracleEntity entity = new OracleEntity();
-            
-            // 動態映射所有列
-            int columnCount = rs.getMetaData().getColumnCount();
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = rs.getMetaData().getColumnName(i);
-                Object value = rs.getObject(i);
-                
-                // 處理 CLOB 類型
-                if (value instanceof java.sql.Clob) {
-                    java.sql.Clob clob = (java.sql.Clob) value;
-                    value = clob.getSubString(1, (int) clob.length());
-                }
-                
-                entity.addField(columnName, value);
-            }
-            
-            return entity;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import oracle.jdbc.OracleStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 讀取參數自動調整
+ * 作業開始時抽樣 CLOB 長度 (DBMS_LOB.GETLENGTH)，決定：
+ * LOB 預取大小：涵蓋九成 CLOB 的長度，一般大小的 CLOB 隨資料列一併傳回，不需再以 locator 讀取；
+ * fetch size：依每列預估傳輸量使每次往返約為 batch.reader.fetch-tuning.target-bytes，
+ * 大型 CLOB 資料表不會一次預取上千列造成記憶體尖峰。
+ * 結果寫入各分區的 ExecutionContext，重新啟動時沿用相同的設定；
+ * 游標讀取器、keyset 讀取器與變更偵測讀取器的完整資料列查詢都套用相同的參數
+ */
+@Component
+public class OracleFetchTuner {
+
+    private static final Logger log = LoggerFactory.getLogger(OracleFetchTuner.class);
+
+    /** 自動調整後的 fetch size */
+    public static final String FETCH_SIZE_KEY = "reader.fetchSize";
+
+    /** 自動調整後的 LOB 預取大小 (字元數) */
+    public static final String LOB_PREFETCH_SIZE_KEY = "reader.lobPrefetchSize";
+
+    /** 主鍵與 locator 等非 CLOB 內容的每列估計位元組數 */
+    private static final long ROW_OVERHEAD_BYTES = 256;
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Value("${batch.reader.fetch-tuning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${batch.reader.fetch-tuning.sample-percent:1}")
+    private double samplePercent;
+
+    @Value("${batch.reader.fetch-tuning.sample-rows:2000}")
+    private int sampleRows;
+
+    @Value("${batch.reader.fetch-tuning.target-bytes:8388608}")
+    private long targetBytes;
+
+    @Value("${batch.reader.fetch-tuning.max-lob-prefetch:262144}")
+    private int maxLobPrefetch;
+
+    @Value("${batch.reader.fetch-tuning.min-fetch-size:10}")
+    private int minFetchSize;
+
+    @Value("${batch.reader.fetch-tuning.max-fetch-size:1000}")
+    private int maxFetchSize;
+
+    /**
+     * 抽樣 CLOB 長度並將調整結果寫入所有分區
+     * 未啟用、沒有 CLOB 欄位、資料表為空或抽樣失敗時不寫入，讀取器使用預設值
+     */
+    public void tune(MigrationPlan plan, Collection<ExecutionContext> partitions) {
+        if (!enabled || plan.getClobColumns().isEmpty()) {
+            return;
+        }
+
+        List<long[]> lengths;
+        try {
+            lengths = sampleLengths(plan, true);
+            if (lengths == null) {
+                // 小資料表抽樣可能沒有資料列，改讀取前幾列
+                lengths = sampleLengths(plan, false);
+            }
+        } catch (DataAccessException e) {
+            log.warn("無法抽樣資料表 {} 的 CLOB 長度，使用預設讀取參數: {}", plan.getQualifiedTable(), e.getMessage());
+            return;
+        }
+
+        if (lengths == null) {
+            return;
+        }
+
+        // LOB 預取大小取各欄位第 90 百分位長度的最大值
+        long lobPrefetch = 0;
+        for (long[] columnLengths : lengths) {
+            lobPrefetch = Math.max(lobPrefetch, columnLengths[0]);
+        }
+        int lobPrefetchSize = (int) Math.max(1, Math.min(lobPrefetch, maxLobPrefetch));
+
+        // 預取範圍內的 CLOB 內容隨資料列傳回，以每字元 2 位元組估計
+        long rowBytes = ROW_OVERHEAD_BYTES;
+        for (long[] columnLengths : lengths) {
+            rowBytes += 2L * Math.min(columnLengths[1], lobPrefetchSize);
+        }
+        int fetchSize = (int) Math.max(minFetchSize, Math.min(maxFetchSize, targetBytes / rowBytes));
+
+        for (ExecutionContext partition : partitions) {
+            partition.putInt(FETCH_SIZE_KEY, fetchSize);
+            partition.putInt(LOB_PREFETCH_SIZE_KEY, lobPrefetchSize);
+        }
+
+        log.info("資料表 {} 讀取參數: fetchSize={}, lobPrefetchSize={} (每列估計 {} bytes)",
+                plan.getQualifiedTable(), fetchSize, lobPrefetchSize, rowBytes);
+    }
+
+    /**
+     * 建立套用分區讀取參數的 JdbcTemplate，供以 JdbcTemplate 讀取 CLOB 的讀取器使用
+     * 分區未調整時 fetch size 使用 defaultFetchSize，不設定 LOB 預取
+     */
+    public static JdbcTemplate jdbcTemplate(DataSource dataSource, ExecutionContext partition, int defaultFetchSize) {
+        int lobPrefetchSize = partition.getInt(LOB_PREFETCH_SIZE_KEY, 0);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            protected void applyStatementSettings(Statement stmt) throws SQLException {
+                super.applyStatementSettings(stmt);
+                if (lobPrefetchSize > 0) {
+                    stmt.unwrap(OracleStatement.class).setLobPrefetchSize(lobPrefetchSize);
+                }
+            }
+        };
+        jdbcTemplate.setFetchSize(partition.getInt(FETCH_SIZE_KEY, defaultFetchSize));
+        return jdbcTemplate;
+    }
+
+    /**
+     * 回傳每個 CLOB 欄位的 {第 90 百分位長度, 平均長度}，抽樣無資料列時回傳 null
+     */
+    private List<long[]> sampleLengths(MigrationPlan plan, boolean sample) {
+        List<String> clobColumns = plan.getClobColumns();
+
+        List<String> aggregates = new ArrayList<>();
+        List<String> lengthColumns = new ArrayList<>();
+        for (int i = 0; i < clobColumns.size(); i++) {
+            aggregates.add("PERCENTILE_DISC(0.9) WITHIN GROUP (ORDER BY L" + i + ") AS P" + i);
+            aggregates.add("AVG(L" + i + ") AS A" + i);
+            lengthColumns.add("NVL(DBMS_LOB.GETLENGTH(" + clobColumns.get(i) + "), 0) AS L" + i);
+        }
+
+        // 抽樣只用於估計大小，不需與快照或過濾條件一致
+        String sql = "SELECT COUNT(*) AS ROW_COUNT, " + String.join(", ", aggregates)
+                + " FROM (SELECT " + String.join(", ", lengthColumns)
+                + " FROM " + plan.getQualifiedTable()
+                + (sample ? " SAMPLE (" + samplePercent + ")" : "")
+                + " WHERE ROWNUM <= ?)";
+
+        Map<String, Object> result = new JdbcTemplate(dataSource).queryForMap(sql, sampleRows);
+        if (((Number) result.get("ROW_COUNT")).longValue() == 0) {
+            return null;
+        }
+
+        List<long[]> lengths = new ArrayList<>();
+        for (int i = 0; i < clobColumns.size(); i++) {
+            lengths.add(new long[] {
+                    ((Number) result.get("P" + i)).longValue(),
+                    ((Number) result.get("A" + i)).longValue()
+            });
+        }
+        return lengths;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.support.GridFsSpillover;
+import com.example.migration.model.row.OracleRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Oracle keyset 分頁讀取器
+ * 依主鍵排序，每頁以 WHERE key > :lastKey ... FETCH FIRST n ROWS ONLY 查詢，
+ * 不需長時間開啟游標，可避免 ORA-01555 (snapshot too old)。
+ * 最後一筆已提交的主鍵值記錄在 step ExecutionContext，重新啟動時由該鍵值之後繼續讀取。
+ * 主鍵欄位不可為 NULL
+ */
+@Component
+@StepScope
+public class OracleKeysetReader implements ItemStreamReader<OracleRow> {
+
+    private static final Logger log = LoggerFactory.getLogger(OracleKeysetReader.class);
+
+    /** 最後一筆已讀取資料的主鍵值 (依 key_columns 順序) */
+    public static final String LAST_KEY_KEY = "keyset.lastKey";
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GridFsSpillover gridFsSpillover;
+
+    @Value("${batch.reader.page-size:1000}")
+    private int defaultPageSize;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private OracleRowMapper rowMapper;
+
+    private String firstPageSql;
+
+    private String nextPageSql;
+
+    private List<Object> baseArguments;
+
+    private int pageSize;
+
+    private List<OracleRow> page = Collections.emptyList();
+
+    private int pageIndex;
+
+    private boolean lastPage;
+
+    /** 目前這一頁最後一筆的主鍵值，用於查詢下一頁 */
+    private Object[] lastFetchedKey;
+
+    /** 最後一筆交給 step 的主鍵值，chunk 提交時寫入 ExecutionContext */
+    private Object[] lastReadKey;
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        pageSize = migrationPlan.getPageSize() != null ? migrationPlan.getPageSize() : defaultPageSize;
+
+        baseArguments = new ArrayList<>();
+        List<String> conditions = OracleSourceQuery.conditions(migrationPlan, executionContext, baseArguments);
+        firstPageSql = buildSql(conditions, false);
+        nextPageSql = buildSql(conditions, true);
+
+        // 自動調整的 fetch size 限制每次往返的傳輸量，一頁可能分多次往返取回
+        jdbcTemplate = OracleFetchTuner.jdbcTemplate(dataSource, executionContext, pageSize);
+
+        rowMapper = OracleRowMapper.forPlan(migrationPlan, objectMapper, gridFsSpillover);
+
+        page = Collections.emptyList();
+        pageIndex = 0;
+        lastPage = false;
+        lastFetchedKey = null;
+        lastReadKey = null;
+
+        if (executionContext.containsKey(LAST_KEY_KEY)) {
+            lastReadKey = ((List<?>) executionContext.get(LAST_KEY_KEY)).toArray();
+            lastFetchedKey = lastReadKey;
+            log.info("Resuming {} after key {}", migrationPlan.getQualifiedTable(), Arrays.toString(lastReadKey));
+        }
+    }
+
+    @Override
+    public OracleRow read() throws Exception {
+        if (pageIndex >= page.size()) {
+            if (lastPage) {
+                return null;
+            }
+            fetchPage();
+            if (page.isEmpty()) {
+                return null;
+            }
+        }
+
+        OracleRow row = page.get(pageIndex);
+        // 釋放已交出的資料列，避免整頁資料在 chunk 處理期間持續佔用記憶體
+        page.set(pageIndex++, null);
+
+        lastReadKey = keyOf(row);
+        return row;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (lastReadKey != null) {
+            executionContext.put(LAST_KEY_KEY, new ArrayList<>(Arrays.asList(lastReadKey)));
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        page = Collections.emptyList();
+    }
+
+    private void fetchPage() {
+        List<Object> arguments = new ArrayList<>(baseArguments);
+        String sql;
+        if (lastFetchedKey == null) {
+            sql = firstPageSql;
+        } else {
+            sql = nextPageSql;
+            OracleSourceQuery.addKeysetArguments(arguments, lastFetchedKey);
+        }
+        arguments.add(pageSize);
+
+        page = jdbcTemplate.query(sql, rowMapper, arguments.toArray());
+        pageIndex = 0;
+        lastPage = page.size() < pageSize;
+
+        if (!page.isEmpty()) {
+            lastFetchedKey = keyOf(page.get(page.size() - 1));
+        }
+    }
+
+    /**
+     * 查詢欄位以主鍵欄位開頭，主鍵值即為資料列的前幾個欄位
+     */
+    private Object[] keyOf(OracleRow row) {
+        Object[] key = new Object[migrationPlan.getKeyColumns().size()];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = row.getValue(i);
+        }
+        return key;
+    }
+
+    private String buildSql(List<String> conditions, boolean afterLastKey) {
+        List<String> keyColumns = migrationPlan.getKeyColumns();
+
+        List<String> allConditions = new ArrayList<>(conditions);
+        if (afterLastKey) {
+            allConditions.add(OracleSourceQuery.keysetPredicate(keyColumns));
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(migrationPlan.getSelectColumns())
+                .append(" FROM ").append(migrationPlan.getSourceTable());
+
+        OracleSourceQuery.appendWhere(sql, allConditions);
+
+        sql.append(" ORDER BY ").append(String.join(", ", keyColumns))
+           .append(" FETCH FIRST ? ROWS ONLY");
+
+        return sql.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.model.row.OracleRow;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 依主鍵批次查詢來源資料列
+ * 以 IN 清單一次查詢多筆，複合主鍵使用 (k1, k2) IN ((?, ?), ...)；
+ * Oracle IN 清單上限為 1000 項，超過時分多次查詢
+ */
+public class OracleRowLookup {
+
+    /** Oracle IN 清單項目上限 */
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final MigrationPlan migrationPlan;
+
+    private final OracleRowMapper rowMapper;
+
+    OracleRowLookup(JdbcTemplate jdbcTemplate, MigrationPlan migrationPlan, OracleRowMapper rowMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.migrationPlan = migrationPlan;
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * 查詢主鍵對應的資料列，回傳順序不保證與輸入相同，不存在的主鍵不會回傳
+     *
+     * @param keys 主鍵值，每個陣列依 key_columns 順序
+     */
+    public List<OracleRow> fetchByKeys(List<Object[]> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<OracleRow> rows = new ArrayList<>(keys.size());
+        for (int from = 0; from < keys.size(); from += MAX_IN_LIST_SIZE) {
+            List<Object[]> batch = keys.subList(from, Math.min(from + MAX_IN_LIST_SIZE, keys.size()));
+
+            List<Object> arguments = new ArrayList<>(batch.size() * migrationPlan.getKeyColumns().size());
+            for (Object[] key : batch) {
+                Collections.addAll(arguments, key);
+            }
+
+            rows.addAll(jdbcTemplate.query(buildSql(batch.size()), rowMapper, arguments.toArray()));
+        }
+
+        return rows;
+    }
+
+    private String buildSql(int keyCount) {
+        List<String> keyColumns = migrationPlan.getKeyColumns();
+        boolean composite = keyColumns.size() > 1;
+
+        String placeholder = composite
+                ? "(" + String.join(", ", Collections.nCopies(keyColumns.size(), "?")) + ")"
+                : "?";
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(migrationPlan.getSelectColumns())
+                .append(" FROM ").append(migrationPlan.getSourceTable())
+                .append(" WHERE ")
+                .append(composite ? "(" + String.join(", ", keyColumns) + ")" : keyColumns.get(0))
+                .append(" IN (")
+                .append(String.join(", ", Collections.nCopies(keyCount, placeholder)))
+                .append(")");
+
+        return sql.toString();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.support.GridFsSpillover;
+import com.example.migration.batch.support.JsonBsonTranscoder;
+import com.example.migration.batch.support.OsonBsonTranscoder;
+import com.example.migration.model.row.OracleRow;
+import com.example.migration.model.row.RowSchema;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import oracle.sql.json.OracleJsonParser;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Oracle Row Mapper
+ * 每個游標建立一個實例，欄位描述只在第一列時由中繼資料建立，之後所有資料列共用；
+ * 啟用 GridFS 溢出時，超過門檻的 CLOB 在讀取時直接以串流上傳，資料列中只保留參照
+ */
+class OracleRowMapper implements RowMapper<OracleRow> {
+
+    private final JsonBsonTranscoder transcoder;
+
+    private final OsonBsonTranscoder osonTranscoder;
+
+    private final GridFsSpillover spillover;
+
+    /** 產生 GridFS 檔案 ID 用，未啟用溢出時為 null */
+    private final MigrationPlan plan;
+
+    private RowSchema schema;
+
+    OracleRowMapper(JsonBsonTranscoder transcoder, OsonBsonTranscoder osonTranscoder) {
+        this(transcoder, osonTranscoder, null, null);
+    }
+
+    OracleRowMapper(JsonBsonTranscoder transcoder, OsonBsonTranscoder osonTranscoder,
+                    GridFsSpillover spillover, MigrationPlan plan) {
+        this.transcoder = transcoder;
+        this.osonTranscoder = osonTranscoder;
+        this.spillover = spillover;
+        this.plan = plan;
+    }
+
+    /**
+     * 依 json_mode 建立對應的 row mapper
+     * stream 模式直接將 CLOB 字元串流轉為 BSON，不產生完整的 String；
+     * oson 模式以二進位 OSON 讀取 JSON 欄位並直接轉為 BSON
+     */
+    static OracleRowMapper forPlan(MigrationPlan plan, ObjectMapper objectMapper, GridFsSpillover spillover) {
+        GridFsSpillover clobSpillover = spillover != null && spillover.isEnabled() ? spillover : null;
+        if (plan.isOsonJson()) {
+            return new OracleRowMapper(null, new OsonBsonTranscoder(), clobSpillover, plan);
+        }
+        if (plan.isStreamingJson()) {
+            return new OracleRowMapper(new JsonBsonTranscoder(objectMapper.getFactory()), null, clobSpillover, plan);
+        }
+        return new OracleRowMapper(null, null, clobSpillover, plan);
+    }
+
+    @Override
+    public OracleRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (schema == null) {
+            schema = RowSchema.from(rs.getMetaData());
+        }
+        
+        int columnCount = schema.size();
+        Object[] values = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            // 處理 OSON 類型
+            if (osonTranscoder != null && schema.isJson(i)) {
+                OracleJsonParser parser = rs.getObject(i + 1, OracleJsonParser.class);
+                if (parser != null) {
+                    values[i] = osonTranscoder.transcode(parser);
+                }
+            // 處理 CLOB 類型
+            } else if (schema.isClob(i)) {
+                Clob clob = rs.getClob(i + 1);
+                if (clob != null) {
+                    if (spillover != null && spillover.shouldSpill(clob.length())) {
+                        values[i] = spillClob(clob, values, i);
+                    } else {
+                        values[i] = transcoder != null ? streamClob(clob) : readClob(clob);
+                    }
+                }
+            } else {
+                values[i] = rs.getObject(i + 1);
+            }
+        }
+        
+        return new OracleRow(schema, values);
+    }
+
+    /**
+     * 將超過門檻的 CLOB 串流上傳至 GridFS
+     * 查詢欄位以主鍵欄位開頭，讀到 CLOB 欄位時主鍵值已在 values 中
+     */
+    private Object spillClob(Clob clob, Object[] values, int index) throws SQLException {
+        Object[] keyValues = new Object[plan.getKeyColumns().size()];
+        System.arraycopy(values, 0, keyValues, 0, keyValues.length);
+        String fileId = plan.documentId(keyValues) + "." + schema.getColumnName(index);
+
+        try {
+            return spillover.spillClob(fileId, clob);
+        } catch (IOException e) {
+            throw new SQLException("Error streaming CLOB content to GridFS", e);
+        } finally {
+            clob.free();
+        }
+    }
+
+    private String readClob(Clob clob) throws SQLException {
+        try {
+            return clob.getSubString(1, (int) clob.length());
+        } finally {
+            clob.free();
+        }
+    }
+
+    /**
+     * 以字元串流讀取 CLOB
+     * JSON 內容直接轉為 BSON，非 JSON 或解析失敗時保留原始字串
+     */
+    private Object streamClob(Clob clob) throws SQLException {
+        try (BufferedReader reader = new BufferedReader(clob.getCharacterStream())) {
+            if (startsWithJson(reader)) {
+                return transcoder.transcode(reader);
+            }
+            return readFully(reader);
+        } catch (IOException | RuntimeException e) {
+            // 解析失敗 (含 transcoder 拋出的 BsonSerializationException、BsonInvalidOperationException 等)，重新讀取原始字串
+            try (Reader reader = clob.getCharacterStream()) {
+                return readFully(reader);
+            } catch (IOException ex) {
+                throw new SQLException("Error reading CLOB content", ex);
+            }
+        } finally {
+            // 釋放 LOB 定位器，避免大量暫存 LOB 佔用 session 資源
+            clob.free();
+        }
+    }
+
+    /**
+     * 檢查第一個非空白字元是否為 JSON 物件或陣列的起點，讀取位置會回到串流開頭
+     */
+    private boolean startsWithJson(BufferedReader reader) throws IOException {
+        reader.mark(8192);
+        int c;
+        int scanned = 0;
+        while ((c = reader.read()) != -1 && Character.isWhitespace(c) && ++scanned < 8192) {
+            // 略過開頭空白
+        }
+        reader.reset();
+        return c == '{' || c == '[';
+    }
+
+    private String readFully(Reader reader) throws IOException {
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[8192];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            content.append(buffer, 0, length);
+        }
+        return content.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.partition.OracleSourcePartitioner;
+import com.example.migration.batch.plan.MigrationPlan;
+
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 來源查詢條件
+ * 組合作業配置的過濾條件與分區範圍，供各種讀取模式與驗證作業共用
+ */
+public final class OracleSourceQuery {
+
+    private OracleSourceQuery() {
+    }
+
+    /**
+     * 建立過濾條件，綁定值依序加入 arguments
+     */
+    public static List<String> conditions(MigrationPlan plan, ExecutionContext executionContext, List<Object> arguments) {
+        String keyColumn = plan.getLeadingKeyColumn();
+        List<String> conditions = new ArrayList<>();
+        
+        // 添加 WHERE 條件
+        if (plan.getWhereCondition() != null) {
+            conditions.add("(" + plan.getWhereCondition() + ")");
+        }
+        
+        // 添加增量範圍 (watermarkLow, watermarkHigh]
+        if (plan.getWatermarkLow() != null) {
+            conditions.add(plan.getWatermarkColumn() + " > ?");
+            arguments.add(plan.getWatermarkLow());
+        }
+        if (plan.getWatermarkHigh() != null) {
+            conditions.add(plan.getWatermarkColumn() + " <= ?");
+            arguments.add(plan.getWatermarkHigh());
+        }
+        
+        // 添加分區範圍 [lowerBound, upperBound)
+        if (executionContext.containsKey(OracleSourcePartitioner.LOWER_BOUND_KEY)) {
+            conditions.add(keyColumn + " >= ?");
+            arguments.add(executionContext.get(OracleSourcePartitioner.LOWER_BOUND_KEY));
+        }
+        if (executionContext.containsKey(OracleSourcePartitioner.UPPER_BOUND_KEY)) {
+            conditions.add(keyColumn + " < ?");
+            arguments.add(executionContext.get(OracleSourcePartitioner.UPPER_BOUND_KEY));
+        }
+        
+        // 添加 ROWID 範圍 [rowidStart, rowidEnd]
+        if (isRowidRange(executionContext)) {
+            conditions.add("ROWID BETWEEN CHARTOROWID(?) AND CHARTOROWID(?)");
+            arguments.add(executionContext.getString(OracleSourcePartitioner.ROWID_START_KEY));
+            arguments.add(executionContext.getString(OracleSourcePartitioner.ROWID_END_KEY));
+        }
+        
+        return conditions;
+    }
+
+    public static boolean isRowidRange(ExecutionContext executionContext) {
+        return executionContext.containsKey(OracleSourcePartitioner.ROWID_START_KEY);
+    }
+
+    /**
+     * 以 AND 串接條件並加在查詢之後
+     */
+    public static void appendWhere(StringBuilder sql, List<String> conditions) {
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+    }
+
+    /**
+     * 複合主鍵的「大於」條件，例如 (k1, k2) > (?, ?) 展開為
+     * (k1 > ? OR (k1 = ? AND k2 > ?))
+     */
+    public static String keysetPredicate(List<String> keyColumns) {
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            StringBuilder term = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                term.append(keyColumns.get(j)).append(" = ? AND ");
+            }
+            term.append(keyColumns.get(i)).append(" > ?");
+            terms.add(i == 0 ? term.toString() : "(" + term + ")");
+        }
+        return "(" + String.join(" OR ", terms) + ")";
+    }
+
+    /**
+     * 依 keysetPredicate 的佔位符順序加入綁定值
+     */
+    public static void addKeysetArguments(List<Object> arguments, Object[] key) {
+        for (int i = 0; i < key.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                arguments.add(key[j]);
+            }
+        }
+    }
+}
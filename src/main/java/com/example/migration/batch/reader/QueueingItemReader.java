@@ -0,0 +1,332 @@
+package com.example.migration.batch.reader;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * 佇列式讀取器
+ * 由單一 producer 執行緒循序讀取底層 reader，放入有界佇列，
+ * 多執行緒 step 的各個處理執行緒只從佇列取出資料，不會同時存取底層游標；
+ * 單執行緒 step 亦可作為預讀階段，讓 JDBC 與 CLOB 讀取和處理、寫入重疊。
+ * 佇列除筆數上限外另以估計位元組數限制，CLOB 大小差異大時避免緩衝區佔用過多記憶體，
+ * 單筆超過上限時仍允許在緩衝區為空時放入。
+ * 多執行緒下無法記錄一致的讀取位置，因此不保存讀取狀態，重新啟動時由分區起點重讀；
+ * 單執行緒預讀 (saveState) 時 producer 在每筆資料讀取後記錄底層 reader 的狀態，
+ * update 時寫入最後一筆交給 step 的資料對應的狀態，重新啟動時由該位置繼續。
+ * producer 讀取失敗後每次 read 都會拋出 {@link ProducerFailureException}，step 需將其排除於 skip 之外
+ */
+public class QueueingItemReader<T> implements ItemStreamReader<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueingItemReader.class);
+
+    /** 資料結束標記 */
+    private static final Object END_OF_DATA = new Object();
+
+    private final ItemStreamReader<T> delegate;
+
+    private final int capacity;
+
+    private final long maxBytes;
+
+    private final ToLongFunction<? super T> weigher;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean saveState;
+
+    private BlockingQueue<Object> queue;
+
+    /** 最後一筆交給 step 的資料讀取後底層 reader 的狀態，只在 saveState 時使用 */
+    private ExecutionContext lastReadState;
+
+    private Thread producer;
+
+    private volatile Throwable producerFailure;
+
+    // 緩衝區位元組數
+    private final ReentrantLock bytesLock = new ReentrantLock();
+    private final Condition bytesReleased = bytesLock.newCondition();
+    private long bufferedBytes;
+
+    // 監控指標：producer 等待代表寫入端較慢，consumer 等待代表讀取端較慢
+    private final List<Meter> meters = new ArrayList<>();
+    private Timer producerWaitTimer;
+    private Timer consumerWaitTimer;
+
+    public QueueingItemReader(ItemStreamReader<T> delegate, int capacity) {
+        this(delegate, capacity, Long.MAX_VALUE, item -> 0L, null);
+    }
+
+    public QueueingItemReader(ItemStreamReader<T> delegate, int capacity, long maxBytes,
+                              ToLongFunction<? super T> weigher, MeterRegistry meterRegistry) {
+        this(delegate, capacity, maxBytes, weigher, meterRegistry, false);
+    }
+
+    /**
+     * @param saveState 是否保存讀取位置，只能用於單執行緒 step
+     */
+    public QueueingItemReader(ItemStreamReader<T> delegate, int capacity, long maxBytes,
+                              ToLongFunction<? super T> weigher, MeterRegistry meterRegistry, boolean saveState) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be greater than 0");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than 0");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.meterRegistry = meterRegistry;
+        this.saveState = saveState;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+
+        queue = new ArrayBlockingQueue<>(capacity);
+        producerFailure = null;
+        bufferedBytes = 0;
+        lastReadState = null;
+
+        // producer 執行緒需註冊同一個 StepExecution，才能存取 step scope 的 reader
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        StepExecution stepExecution = stepContext != null ? stepContext.getStepExecution() : null;
+
+        registerMeters(stepExecution != null ? stepExecution.getStepName() : "unknown");
+
+        producer = new Thread(() -> produce(stepExecution),
+                "reader-" + (stepExecution != null ? stepExecution.getStepName() : "producer"));
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    private void produce(StepExecution stepExecution) {
+        if (stepExecution != null) {
+            StepSynchronizationManager.register(stepExecution);
+        }
+
+        try {
+            T item;
+            while ((item = delegate.read()) != null) {
+                long waitStart = System.nanoTime();
+                acquireBytes(weigher.applyAsLong(item));
+                queue.put(saveState ? new PositionedItem<>(item, delegateState()) : item);
+                recordWait(producerWaitTimer, waitStart);
+            }
+        } catch (InterruptedException e) {
+            // 讀取器關閉，停止讀取
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Throwable e) {
+            log.error("Reader producer failed", e);
+            producerFailure = e;
+        } finally {
+            if (stepExecution != null) {
+                StepSynchronizationManager.release();
+            }
+        }
+
+        try {
+            queue.put(END_OF_DATA);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read() throws Exception {
+        Object item = queue.poll();
+        if (item == null) {
+            long waitStart = System.nanoTime();
+            item = queue.take();
+            recordWait(consumerWaitTimer, waitStart);
+        }
+
+        if (item == END_OF_DATA) {
+            // 放回結束標記，讓其他處理執行緒也能結束
+            queue.put(END_OF_DATA);
+
+            Throwable failure = producerFailure;
+            if (failure != null) {
+                throw new ProducerFailureException("Error reading source data", failure);
+            }
+            return null;
+        }
+
+        if (item instanceof PositionedItem) {
+            PositionedItem<T> positioned = (PositionedItem<T>) item;
+            lastReadState = positioned.state;
+            item = positioned.item;
+        }
+
+        releaseBytes(weigher.applyAsLong((T) item));
+        return (T) item;
+    }
+
+    /**
+     * 在 producer 執行緒取得底層 reader 目前的狀態，與讀取在同一執行緒，不需額外同步
+     */
+    private ExecutionContext delegateState() {
+        ExecutionContext state = new ExecutionContext();
+        delegate.update(state);
+        return state;
+    }
+
+    /**
+     * 等待緩衝區有足夠空間；緩衝區為空時一律允許，避免單筆超過上限的資料列無法放入
+     */
+    private void acquireBytes(long size) throws InterruptedException {
+        bytesLock.lockInterruptibly();
+        try {
+            while (bufferedBytes > 0 && bufferedBytes + size > maxBytes) {
+                bytesReleased.await();
+            }
+            bufferedBytes += size;
+        } finally {
+            bytesLock.unlock();
+        }
+    }
+
+    private void releaseBytes(long size) {
+        bytesLock.lock();
+        try {
+            bufferedBytes -= size;
+            bytesReleased.signalAll();
+        } finally {
+            bytesLock.unlock();
+        }
+    }
+
+    private long getBufferedBytes() {
+        bytesLock.lock();
+        try {
+            return bufferedBytes;
+        } finally {
+            bytesLock.unlock();
+        }
+    }
+
+    private void registerMeters(String stepName) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Tags tags = Tags.of("step", stepName);
+
+        meters.add(Gauge.builder("migration.reader.buffer.bytes", this, QueueingItemReader::getBufferedBytes)
+                .description("Estimated bytes of rows buffered ahead of the processor")
+                .tags(tags)
+                .register(meterRegistry));
+
+        meters.add(Gauge.builder("migration.reader.buffer.rows", this,
+                        reader -> reader.queue != null ? reader.queue.size() : 0)
+                .description("Rows buffered ahead of the processor")
+                .tags(tags)
+                .register(meterRegistry));
+
+        producerWaitTimer = Timer.builder("migration.reader.buffer.wait")
+                .description("Time spent waiting on the read-ahead buffer")
+                .tags(tags.and("side", "producer"))
+                .register(meterRegistry);
+        meters.add(producerWaitTimer);
+
+        consumerWaitTimer = Timer.builder("migration.reader.buffer.wait")
+                .description("Time spent waiting on the read-ahead buffer")
+                .tags(tags.and("side", "consumer"))
+                .register(meterRegistry);
+        meters.add(consumerWaitTimer);
+    }
+
+    private void recordWait(Timer timer, long waitStart) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        // 多執行緒下不保存讀取位置
+        if (saveState && lastReadState != null) {
+            for (Map.Entry<String, Object> entry : lastReadState.entrySet()) {
+                executionContext.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 附帶讀取後底層 reader 狀態的資料
+     */
+    private static class PositionedItem<T> {
+
+        private final T item;
+
+        private final ExecutionContext state;
+
+        private PositionedItem(T item, ExecutionContext state) {
+            this.item = item;
+            this.state = state;
+        }
+    }
+
+    /**
+     * producer 讀取底層 reader 失敗
+     * 失敗後無法再讀取任何資料，不屬於單筆資料的錯誤，不可計入 skip
+     */
+    public static class ProducerFailureException extends ItemStreamException {
+
+        public ProducerFailureException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (producer != null) {
+            producer.interrupt();
+            try {
+                producer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            producer = null;
+        }
+
+        if (queue != null) {
+            queue.clear();
+        }
+
+        for (Meter meter : meters) {
+            meterRegistry.remove(meter);
+        }
+        meters.clear();
+        producerWaitTimer = null;
+        consumerWaitTimer = null;
+
+        delegate.close();
+    }
+}
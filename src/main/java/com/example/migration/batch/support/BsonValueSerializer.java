@@ -0,0 +1,69 @@
+package com.example.migration.batch.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.bson.BsonValue;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * BSON 值的 Jackson 序列化器
+ * stream 模式下 CLOB 內容為 BSON 值，序列化為 JSON 時需依 BSON 型態輸出，
+ * 而非以 Java Bean 方式輸出 BsonValue 的屬性
+ */
+public class BsonValueSerializer extends StdSerializer<BsonValue> {
+
+    public BsonValueSerializer() {
+        super(BsonValue.class);
+    }
+
+    @Override
+    public void serialize(BsonValue value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        switch (value.getBsonType()) {
+            case DOCUMENT:
+                gen.writeStartObject();
+                for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                    gen.writeFieldName(entry.getKey());
+                    serialize(entry.getValue(), gen, provider);
+                }
+                gen.writeEndObject();
+                break;
+            case ARRAY:
+                gen.writeStartArray();
+                for (BsonValue element : value.asArray()) {
+                    serialize(element, gen, provider);
+                }
+                gen.writeEndArray();
+                break;
+            case STRING:
+                gen.writeString(value.asString().getValue());
+                break;
+            case INT32:
+                gen.writeNumber(value.asInt32().getValue());
+                break;
+            case INT64:
+                gen.writeNumber(value.asInt64().getValue());
+                break;
+            case DOUBLE:
+                gen.writeNumber(value.asDouble().getValue());
+                break;
+            case DECIMAL128:
+                gen.writeNumber(value.asDecimal128().getValue().bigDecimalValue());
+                break;
+            case BOOLEAN:
+                gen.writeBoolean(value.asBoolean().getValue());
+                break;
+            case DATE_TIME:
+                gen.writeNumber(value.asDateTime().getValue());
+                break;
+            case NULL:
+                gen.writeNull();
+                break;
+            default:
+                // 其他型態 (ObjectId、Binary 等) 不會由 JSON 轉換產生，以字串形式保留
+                gen.writeString(value.toString());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.migration.batch.support;
+
+import com.example.migration.model.document.MigrationDocument;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GridFS 溢出儲存
+ * 超過 MongoDB 16MB 文件上限的內容改存 GridFS，文檔中只保留參照：
+ * {gridfs: {bucket, fileId, length, contentType}}。
+ * 讀取時 CLOB 長度超過 batch.gridfs.clob-threshold 者，直接由 CLOB 字元串流以 UTF-8 分塊上傳，
+ * 不需將完整內容讀入記憶體；其餘文檔於處理時計算編碼後大小，超過上限時將最大的欄位移至 GridFS。
+ * 檔案 ID 為「文檔 ID.欄位名稱」，重新執行時先刪除舊檔案再上傳，結果不會重複
+ */
+@Component
+public class GridFsSpillover {
+
+    private static final Logger log = LoggerFactory.getLogger(GridFsSpillover.class);
+
+    /** 參照欄位名稱 */
+    public static final String REFERENCE_FIELD = "gridfs";
+
+    /** 參照文件的估計編碼大小 */
+    private static final int REFERENCE_SIZE = 256;
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Value("${batch.gridfs.enabled:false}")
+    private boolean enabled;
+
+    @Value("${batch.gridfs.bucket:migration_spill}")
+    private String bucketName;
+
+    @Value("${batch.gridfs.clob-threshold:8388608}")
+    private long clobThreshold;
+
+    /** 16MB 上限預留 64KB 給 bulkWrite 的指令內容 */
+    @Value("${batch.gridfs.max-document-size:16711680}")
+    private long maxDocumentSize;
+
+    @Value("${batch.gridfs.chunk-size:261120}")
+    private int chunkSize;
+
+    private GridFSBucket bucket;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            bucket = GridFSBuckets.create(mongoTemplate.getDb(), bucketName);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * CLOB 長度 (字元數) 是否超過直接上傳的門檻
+     */
+    public boolean shouldSpill(long clobLength) {
+        return enabled && clobLength > clobThreshold;
+    }
+
+    /**
+     * 以串流方式將 CLOB 上傳至 GridFS，回傳參照文件
+     * 記憶體用量只有讀取緩衝區與一個 GridFS chunk
+     */
+    public Document spillClob(String fileId, Clob clob) throws SQLException, IOException {
+        long length = clob.length();
+        BsonString id = new BsonString(fileId);
+        deleteExisting(id);
+
+        GridFSUploadStream upload = bucket.openUploadStream(id, fileId, uploadOptions("text/plain"));
+        try (Reader reader = clob.getCharacterStream()) {
+            Writer writer = new OutputStreamWriter(upload, StandardCharsets.UTF_8);
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                writer.write(buffer, 0, read);
+            }
+            writer.flush();
+        } catch (IOException | SQLException | RuntimeException e) {
+            // 刪除已上傳的 chunk，避免留下不完整的檔案
+            upload.abort();
+            throw e;
+        }
+        upload.close();
+
+        log.debug("CLOB of {} characters stored in GridFS as {}", length, fileId);
+        return reference(fileId, length, "text/plain");
+    }
+
+    /**
+     * 編碼後超過文件上限時，依大小由大到小將 data 欄位移至 GridFS，直到低於上限
+     * 字串以 UTF-8 儲存，其他型態以 {v: value} 的 BSON 儲存
+     *
+     * @return 是否有欄位被移出
+     */
+    public boolean spillOversizedFields(MigrationDocument document, MigrationDocumentEncoder encoder) {
+        long size = encoder.encodeDocument(document).getByteBuffer().remaining();
+        if (size <= maxDocumentSize || document.getData() == null) {
+            return false;
+        }
+
+        Map<String, Object> data = document.getData();
+        Map<String, RawBsonDocument> encodedFields = new HashMap<>();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            encodedFields.put(entry.getKey(), encoder.encodeValue(entry.getValue()));
+        }
+
+        List<String> fields = new ArrayList<>(encodedFields.keySet());
+        fields.sort(Comparator.comparingInt(
+                (String field) -> encodedFields.get(field).getByteBuffer().remaining()).reversed());
+
+        for (String field : fields) {
+            if (size <= maxDocumentSize) {
+                break;
+            }
+
+            String fileId = document.getId() + "." + field;
+            Object value = data.get(field);
+            int fieldSize = encodedFields.get(field).getByteBuffer().remaining();
+
+            if (value instanceof String) {
+                byte[] content = ((String) value).getBytes(StandardCharsets.UTF_8);
+                upload(fileId, content, "text/plain");
+                data.put(field, reference(fileId, ((String) value).length(), "text/plain"));
+            } else {
+                ByteBuffer content = encodedFields.get(field).getByteBuffer().asNIO();
+                byte[] bytes = new byte[content.remaining()];
+                content.get(bytes);
+                upload(fileId, bytes, "application/bson");
+                data.put(field, reference(fileId, bytes.length, "application/bson"));
+            }
+
+            size -= fieldSize - REFERENCE_SIZE;
+            log.debug("Field {} of document {} ({} bytes) stored in GridFS", field, document.getId(), fieldSize);
+        }
+
+        return true;
+    }
+
+    private void upload(String fileId, byte[] content, String contentType) {
+        BsonString id = new BsonString(fileId);
+        deleteExisting(id);
+
+        GridFSUploadStream upload = bucket.openUploadStream(id, fileId, uploadOptions(contentType));
+        try {
+            upload.write(content);
+        } catch (RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+        upload.close();
+    }
+
+    /**
+     * 重新執行時刪除先前上傳的同名檔案
+     */
+    private void deleteExisting(BsonString id) {
+        if (bucket.find(Filters.eq("_id", id)).first() != null) {
+            bucket.delete(id);
+        }
+    }
+
+    private GridFSUploadOptions uploadOptions(String contentType) {
+        return new GridFSUploadOptions()
+                .chunkSizeBytes(chunkSize)
+                .metadata(new Document("contentType", contentType));
+    }
+
+    private Document reference(String fileId, long length, String contentType) {
+        return new Document(REFERENCE_FIELD, new Document("bucket", bucketName)
+                .append("fileId", fileId)
+                .append("length", length)
+                .append("contentType", contentType));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.migration.batch.support;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.Decimal128;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+
+/**
+ * JSON 串流轉 BSON
+ * 以 Jackson 串流解析器逐一讀取 token 並直接寫入 BSON，
+ * 不需先將 CLOB 全部讀成 String，也不會產生中間的 Map 物件
+ */
+public class JsonBsonTranscoder {
+
+    /** 包裝文件的欄位名稱，BSON 文件必須以 document 為根，陣列需包裝後再取出 */
+    private static final String VALUE_FIELD = "v";
+
+    private final JsonFactory jsonFactory;
+
+    public JsonBsonTranscoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * 將 JSON 串流轉換為 BSON 值
+     * 回傳的 RawBsonDocument / RawBsonArray 直接引用編碼後的位元組，不再另外複製
+     */
+    public BsonValue transcode(Reader reader) throws IOException {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+
+        try (JsonParser parser = jsonFactory.createParser(reader);
+             BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+
+            writer.writeStartDocument();
+            writer.writeName(VALUE_FIELD);
+            writeValue(parser, writer);
+            writer.writeEndDocument();
+
+            // 只允許單一根節點
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after root value");
+            }
+        }
+
+        RawBsonDocument wrapper = new RawBsonDocument(buffer.getInternalBuffer(), 0, buffer.getPosition());
+        return wrapper.get(VALUE_FIELD);
+    }
+
+    /**
+     * 寫入一個完整的 JSON 值 (含巢狀物件與陣列)
+     */
+    private void writeValue(JsonParser parser, BsonBinaryWriter writer) throws IOException {
+        int depth = 0;
+
+        do {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of JSON content");
+            }
+
+            switch (token) {
+                case START_OBJECT:
+                    writer.writeStartDocument();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    writer.writeEndDocument();
+                    depth--;
+                    break;
+                case START_ARRAY:
+                    writer.writeStartArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    writer.writeEndArray();
+                    depth--;
+                    break;
+                case FIELD_NAME:
+                    writer.writeName(parser.currentName());
+                    break;
+                case VALUE_STRING:
+                    writer.writeString(parser.getText());
+                    break;
+                case VALUE_NUMBER_INT:
+                    writeInteger(parser, writer);
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    writer.writeDouble(parser.getDoubleValue());
+                    break;
+                case VALUE_TRUE:
+                    writer.writeBoolean(true);
+                    break;
+                case VALUE_FALSE:
+                    writer.writeBoolean(false);
+                    break;
+                case VALUE_NULL:
+                    writer.writeNull();
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unsupported JSON token: " + token);
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * 整數依大小對應 int32 / int64 / decimal128，與 Jackson 轉 Map 時的型態一致
+     */
+    private void writeInteger(JsonParser parser, BsonBinaryWriter writer) throws IOException {
+        switch (parser.getNumberType()) {
+            case INT:
+                writer.writeInt32(parser.getIntValue());
+                break;
+            case LONG:
+                writer.writeInt64(parser.getLongValue());
+                break;
+            default:
+                writer.writeDecimal128(new Decimal128(new BigDecimal(parser.getBigIntegerValue())));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.migration.batch.support;
+
+import com.example.migration.exception.custom.MigrationException;
+import com.example.migration.model.document.MigrationDocument;
+import org.bson.BsonBinary;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 遷移文檔 BSON 編碼器
+ * 直接以 BsonBinaryWriter 將 MigrationDocument 編碼為 RawBsonDocument，不經過 MappingMongoConverter。
+ * 型態對應與 Spring Data 預設轉換一致：BigDecimal / BigInteger 寫為字串，
+ * LocalDateTime 以系統時區轉為 BSON 日期，byte[] (RAW / BLOB) 寫為二進位，BSON 值 (stream / oson 模式) 直接寫入；
+ * 其他型態無法確定對應方式，直接拋出例外，不以 toString 寫入
+ */
+public class MigrationDocumentEncoder {
+
+    private static final BsonValueCodec BSON_VALUE_CODEC = new BsonValueCodec();
+
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+
+    /**
+     * 編碼完整文檔，供 insert 使用
+     * 與 MappingMongoConverter 相同，值為 null 的欄位不寫入
+     */
+    public RawBsonDocument encodeDocument(MigrationDocument document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writeField(writer, "_id", document.getId(), true);
+            writeField(writer, "sourceTable", document.getSourceTable(), true);
+            writeField(writer, "migrationTime", document.getMigrationTime(), true);
+            writeField(writer, "version", document.getVersion(), true);
+            writeField(writer, "data", document.getData(), true);
+            writeField(writer, "sourceHash", document.getSourceHash(), true);
+            writeField(writer, "rangeKey", document.getRangeKey(), true);
+            writeField(writer, "status", document.getStatus(), true);
+            writeField(writer, "errorMessage", document.getErrorMessage(), true);
+            writer.writeEndDocument();
+        }
+        return new RawBsonDocument(buffer.getInternalBuffer(), 0, buffer.getPosition());
+    }
+
+    /**
+     * 編碼 {$set: {...}} 更新文檔，供 upsert 使用
+     * 欄位與 MongoDocumentWriter 原本的 Update 相同
+     */
+    public RawBsonDocument encodeSetUpdate(MigrationDocument document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writer.writeName("$set");
+            writer.writeStartDocument();
+            writeField(writer, "sourceTable", document.getSourceTable(), false);
+            writeField(writer, "migrationTime", document.getMigrationTime(), false);
+            writeField(writer, "version", document.getVersion(), false);
+            writeField(writer, "data", document.getData(), false);
+            writeField(writer, "sourceHash", document.getSourceHash(), false);
+            writeField(writer, "rangeKey", document.getRangeKey(), false);
+            writer.writeEndDocument();
+            writer.writeEndDocument();
+        }
+        return new RawBsonDocument(buffer.getInternalBuffer(), 0, buffer.getPosition());
+    }
+
+    /**
+     * 將單一值包裝為 {v: value} 編碼，用於計算欄位的 BSON 大小
+     */
+    public RawBsonDocument encodeValue(Object value) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writeField(writer, "v", value, false);
+            writer.writeEndDocument();
+        }
+        return new RawBsonDocument(buffer.getInternalBuffer(), 0, buffer.getPosition());
+    }
+
+    private void writeField(BsonWriter writer, String name, Object value, boolean skipNull) {
+        if (value == null && skipNull) {
+            return;
+        }
+        writer.writeName(name);
+        writeValue(writer, value);
+    }
+
+    private void writeValue(BsonWriter writer, Object value) {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value instanceof String) {
+            writer.writeString((String) value);
+        } else if (value instanceof BsonValue) {
+            BSON_VALUE_CODEC.encode(writer, (BsonValue) value, ENCODER_CONTEXT);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writer.writeInt32(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            writer.writeInt64((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            writer.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Decimal128) {
+            writer.writeDecimal128((Decimal128) value);
+        } else if (value instanceof BigDecimal) {
+            writer.writeString(((BigDecimal) value).toString());
+        } else if (value instanceof BigInteger) {
+            writer.writeString(value.toString());
+        } else if (value instanceof byte[]) {
+            writer.writeBinaryData(new BsonBinary((byte[]) value));
+        } else if (value instanceof Boolean) {
+            writer.writeBoolean((Boolean) value);
+        } else if (value instanceof Date) {
+            writer.writeDateTime(((Date) value).getTime());
+        } else if (value instanceof LocalDateTime) {
+            writer.writeDateTime(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        } else if (value instanceof Map) {
+            writer.writeStartDocument();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writer.writeName(String.valueOf(entry.getKey()));
+                writeValue(writer, entry.getValue());
+            }
+            writer.writeEndDocument();
+        } else if (value instanceof Collection) {
+            writer.writeStartArray();
+            for (Object element : (Collection<?>) value) {
+                writeValue(writer, element);
+            }
+            writer.writeEndArray();
+        } else {
+            // 驅動程式專屬型態 (例如 oracle.sql.TIMESTAMPTZ) 以字串寫入會使型態與內容無聲地改變
+            throw new MigrationException("Unsupported value type for BSON encoding: " + value.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.migration.batch.support;
+
+import oracle.sql.json.OracleJsonParser;
+import org.bson.BsonBinary;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.ZoneOffset;
+
+/**
+ * OSON 轉 BSON
+ * 以 Oracle JSON 解析器逐一讀取二進位 OSON 事件並直接寫入 BSON，
+ * 不經過 JSON 文字的序列化與解析。
+ * 數值型態的對應與 {@link JsonBsonTranscoder} 相同：整數依大小為 int32 / int64 / decimal128，
+ * 非整數為 double；DATE / TIMESTAMP 以 UTC 轉為 BSON 日期
+ */
+public class OsonBsonTranscoder {
+
+    /** 包裝文件的欄位名稱，BSON 文件必須以 document 為根，陣列需包裝後再取出 */
+    private static final String VALUE_FIELD = "v";
+
+    /**
+     * 將 OSON 轉換為 BSON 值
+     * 回傳的 RawBsonDocument / RawBsonArray 直接引用編碼後的位元組，不再另外複製
+     */
+    public BsonValue transcode(OracleJsonParser parser) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writer.writeName(VALUE_FIELD);
+            writeValue(parser, writer);
+            writer.writeEndDocument();
+        } finally {
+            parser.close();
+        }
+
+        RawBsonDocument wrapper = new RawBsonDocument(buffer.getInternalBuffer(), 0, buffer.getPosition());
+        return wrapper.get(VALUE_FIELD);
+    }
+
+    /**
+     * 寫入一個完整的 JSON 值 (含巢狀物件與陣列)
+     */
+    private void writeValue(OracleJsonParser parser, BsonBinaryWriter writer) {
+        int depth = 0;
+
+        do {
+            if (!parser.hasNext()) {
+                throw new IllegalStateException("Unexpected end of OSON content");
+            }
+
+            OracleJsonParser.Event event = parser.next();
+            switch (event) {
+                case START_OBJECT:
+                    writer.writeStartDocument();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    writer.writeEndDocument();
+                    depth--;
+                    break;
+                case START_ARRAY:
+                    writer.writeStartArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    writer.writeEndArray();
+                    depth--;
+                    break;
+                case KEY_NAME:
+                    writer.writeName(parser.getString());
+                    break;
+                case VALUE_STRING:
+                    writer.writeString(parser.getString());
+                    break;
+                case VALUE_DECIMAL:
+                    writeDecimal(parser.getBigDecimal(), writer);
+                    break;
+                case VALUE_DOUBLE:
+                    writer.writeDouble(parser.getDouble());
+                    break;
+                case VALUE_FLOAT:
+                    writer.writeDouble(parser.getFloat());
+                    break;
+                case VALUE_TRUE:
+                    writer.writeBoolean(true);
+                    break;
+                case VALUE_FALSE:
+                    writer.writeBoolean(false);
+                    break;
+                case VALUE_NULL:
+                    writer.writeNull();
+                    break;
+                case VALUE_BINARY:
+                    writer.writeBinaryData(new BsonBinary(parser.getBytes()));
+                    break;
+                case VALUE_DATE:
+                case VALUE_TIMESTAMP:
+                    writer.writeDateTime(parser.getLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli());
+                    break;
+                case VALUE_TIMESTAMPTZ:
+                    writer.writeDateTime(parser.getOffsetDateTime().toInstant().toEpochMilli());
+                    break;
+                default:
+                    // INTERVAL 等型態沒有對應的 BSON 型態，保留字串形式
+                    writer.writeString(parser.getString());
+            }
+        } while (depth > 0);
+    }
+
+    private void writeDecimal(BigDecimal value, BsonBinaryWriter writer) {
+        if (value.signum() == 0 || value.stripTrailingZeros().scale() <= 0) {
+            BigInteger integral = value.toBigIntegerExact();
+            if (integral.bitLength() < 32) {
+                writer.writeInt32(integral.intValue());
+            } else if (integral.bitLength() < 64) {
+                writer.writeInt64(integral.longValue());
+            } else {
+                writer.writeDecimal128(new Decimal128(new BigDecimal(integral)));
+            }
+        } else {
+            writer.writeDouble(value.doubleValue());
+        }
+    }
+}
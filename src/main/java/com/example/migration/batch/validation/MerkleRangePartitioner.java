@@ -0,0 +1,81 @@
+package com.example.migration.batch.validation;
+
+import com.example.migration.batch.partition.OracleSourcePartitioner;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.service.MerkleTreeService;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 驗證範圍分區器
+ * 首次驗證、來源資料表變更或作業參數 fullValidation=true 時，依主鍵切分為
+ * batch.validation.leaf-count 個範圍並重建 Merkle 樹；其餘執行只回傳增量遷移寫入過
+ * (或上次未完成驗證) 的範圍。範圍固定保存在 Merkle 樹中，每次驗證比對的都是同一組範圍
+ */
+@Component
+@StepScope
+public class MerkleRangePartitioner implements Partitioner {
+
+    private static final Logger log = LoggerFactory.getLogger(MerkleRangePartitioner.class);
+
+    /** 強制完整驗證的作業參數 */
+    public static final String FULL_VALIDATION_PARAMETER = "fullValidation";
+
+    @Autowired
+    private OracleSourcePartitioner oracleSourcePartitioner;
+
+    @Autowired
+    private MerkleTreeService merkleTreeService;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Value("#{jobParameters['" + FULL_VALIDATION_PARAMETER + "']}")
+    private String fullValidation;
+
+    /**
+     * 葉節點 (範圍) 數，平行度仍由 taskExecutor 的執行緒數限制
+     * 每個範圍在兩端各執行一次依主鍵 (MongoDB 為 rangeKey) 索引的範圍查詢，範圍越多單次查詢越小，
+     * 增量驗證需重新計算的資料也越少
+     */
+    @Value("${batch.validation.leaf-count:256}")
+    private int leafCount;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        String jobName = migrationPlan.getJobName();
+
+        // 範圍比對依 rangeKey 查詢，索引已存在時 createIndex 不會重建
+        mongoTemplate.getCollection(migrationPlan.getCollection()).createIndex(
+                Indexes.ascending(MigrationPlan.RANGE_KEY_FIELD),
+                new IndexOptions().name(MigrationPlan.RANGE_KEY_FIELD));
+
+        if (Boolean.parseBoolean(fullValidation)
+                || !merkleTreeService.hasTree(jobName, migrationPlan.getQualifiedTable())) {
+            Map<String, ExecutionContext> ranges = oracleSourcePartitioner.partitionByKey(leafCount);
+            merkleTreeService.reset(jobName, migrationPlan.getQualifiedTable(), ranges.values());
+            return ranges;
+        }
+
+        Map<String, ExecutionContext> ranges = merkleTreeService.dirtyRanges(jobName);
+        log.info("增量驗證 {}: {} 個範圍需重新計算", jobName, ranges.size());
+        return ranges;
+    }
+}
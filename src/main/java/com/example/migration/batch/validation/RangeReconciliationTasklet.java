@@ -0,0 +1,399 @@
+package com.example.migration.batch.validation;
+
+import com.example.migration.batch.partition.OracleSourcePartitioner;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.reader.OracleRowLookup;
+import com.example.migration.batch.reader.OracleSourceQuery;
+import com.example.migration.service.MerkleTreeService;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 鍵值範圍比對
+ * 每個分區比對同一主鍵範圍內 Oracle 與 MongoDB 的筆數與聚合雜湊值：
+ * Oracle 端以 getSourceHashExpression() 在資料庫內計算每列雜湊值，MongoDB 端以 aggregation 讀取文檔的 sourceHash，
+ * 兩邊都取雜湊值前 8 位十六進位轉為數值後加總，與資料列順序無關。
+ * 範圍一致時不傳輸任何資料列；不一致時才逐批比對主鍵，找出遺漏、多出與內容不同的文檔，
+ * 每批最多 1000 筆，記憶體用量與範圍大小無關。
+ * MongoDB 端加總的是寫入時保存的 Oracle 雜湊值，不會重新計算文檔內容，比對的是文檔是否由同一版本的來源資料寫入。
+ * 文檔沒有 sourceHash (遷移時未啟用 change_detection) 的範圍只比對筆數與主鍵，
+ * 驗證作業結束時以 UNVERIFIED 狀態回報這些範圍，而不是視為一致。
+ * 兩端的筆數與聚合雜湊值寫入 Merkle 樹的葉節點，供之後的增量驗證沿用。
+ * MongoDB 端以 rangeKey 欄位 (第一個主鍵的原生型態值) 的索引依範圍查詢，包含無上下界的範圍在內都只選取有 rangeKey 的文檔；
+ * 未寫入 rangeKey 的舊文檔不在任何範圍內，由驗證作業另外計數並以 UNVERIFIED 狀態回報，需重新遷移後才會計入
+ */
+@Component
+@StepScope
+public class RangeReconciliationTasklet implements Tasklet {
+
+    private static final Logger log = LoggerFactory.getLogger(RangeReconciliationTasklet.class);
+
+    /** 比對結果的 ExitStatus，分區彙總後作業的結束狀態 */
+    public static final String MISMATCH_EXIT_CODE = "MISMATCH";
+
+    /** 範圍一致但有範圍未比對雜湊值 (只比對筆數與主鍵) 時作業的結束狀態 */
+    public static final String UNVERIFIED_EXIT_CODE = "UNVERIFIED";
+
+    // 比對結果，寫入 step ExecutionContext
+    public static final String ORACLE_COUNT_KEY = "validation.oracleCount";
+    public static final String MONGO_COUNT_KEY = "validation.mongoCount";
+    public static final String MISSING_COUNT_KEY = "validation.missingCount";
+    public static final String EXTRA_COUNT_KEY = "validation.extraCount";
+    public static final String CHANGED_COUNT_KEY = "validation.changedCount";
+    public static final String CHECKSUM_COMPARED_KEY = "validation.checksumCompared";
+
+    /** 雜湊值用於加總的十六進位位數，32 位元數值加總 5 億筆仍在 long 範圍內 */
+    private static final int CHECKSUM_HEX_DIGITS = 8;
+
+    private static final String HEX_DIGITS = "0123456789ABCDEF";
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Autowired
+    private MerkleTreeService merkleTreeService;
+
+    @Value("${batch.validation.max-reported-differences:100}")
+    private int maxReportedDifferences;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext stepContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Document filter = mongoRangeFilter(stepContext);
+        RangeSummary mongo = mongoSummary(filter);
+
+        // 所有文檔都有 sourceHash 時才需要在 Oracle 端計算雜湊值
+        boolean compareChecksum = mongo.count > 0 && mongo.hashedCount == mongo.count;
+        RangeSummary oracle = oracleSummary(stepContext, compareChecksum);
+
+        stepContext.putLong(ORACLE_COUNT_KEY, oracle.count);
+        stepContext.putLong(MONGO_COUNT_KEY, mongo.count);
+        stepContext.putString(CHECKSUM_COMPARED_KEY, String.valueOf(compareChecksum));
+
+        // 未比對雜湊值的範圍只以筆數計算葉節點雜湊值
+        merkleTreeService.recordLeaf(migrationPlan.getJobName(),
+                stepContext.getInt(OracleSourcePartitioner.PARTITION_INDEX_KEY),
+                oracle.count, compareChecksum ? oracle.checksum : 0,
+                mongo.count, compareChecksum ? mongo.checksum : 0,
+                chunkContext.getStepContext().getStepExecution().getJobExecutionId());
+
+        boolean matched = oracle.count == mongo.count && (!compareChecksum || oracle.checksum == mongo.checksum);
+        if (matched) {
+            log.info("Range {} matched: count={}", rangeOf(stepContext), oracle.count);
+            return RepeatStatus.FINISHED;
+        }
+
+        log.warn("Range {} mismatched: oracle count={}, checksum={}; mongo count={}, checksum={}",
+                rangeOf(stepContext), oracle.count, oracle.checksum, mongo.count, mongo.checksum);
+
+        Differences differences = new Differences();
+        findMissingAndChanged(stepContext, compareChecksum, differences);
+        if (mongo.count > oracle.count - differences.missing) {
+            findExtra(filter, differences);
+        }
+
+        stepContext.putLong(MISSING_COUNT_KEY, differences.missing);
+        stepContext.putLong(EXTRA_COUNT_KEY, differences.extra);
+        stepContext.putLong(CHANGED_COUNT_KEY, differences.changed);
+
+        log.warn("Range {} differences: missing={}, extra={}, changed={}, samples={}", rangeOf(stepContext),
+                differences.missing, differences.extra, differences.changed, differences.samples);
+
+        if (differences.missing + differences.extra + differences.changed > 0) {
+            contribution.setExitStatus(new ExitStatus(MISMATCH_EXIT_CODE,
+                    "missing=" + differences.missing + ", extra=" + differences.extra
+                            + ", changed=" + differences.changed));
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * 本次驗證中有文檔但未比對雜湊值的範圍數
+     */
+    public static int countOnlyRanges(Collection<StepExecution> stepExecutions) {
+        int ranges = 0;
+        for (StepExecution stepExecution : stepExecutions) {
+            ExecutionContext context = stepExecution.getExecutionContext();
+            if ("false".equals(context.get(CHECKSUM_COMPARED_KEY)) && context.getLong(MONGO_COUNT_KEY, 0L) > 0) {
+                ranges++;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Oracle 端的筆數與聚合雜湊值，在資料庫內完成，只傳回一列
+     */
+    private RangeSummary oracleSummary(ExecutionContext stepContext, boolean withChecksum) {
+        List<Object> arguments = new ArrayList<>();
+        StringBuilder inner = new StringBuilder("SELECT ")
+                .append(withChecksum ? migrationPlan.getSourceHashExpression() : "NULL")
+                .append(" AS H FROM ").append(migrationPlan.getSourceTable());
+        OracleSourceQuery.appendWhere(inner, OracleSourceQuery.conditions(migrationPlan, stepContext, arguments));
+
+        String sql = "SELECT COUNT(*) AS ROW_COUNT, NVL(SUM(TO_NUMBER(SUBSTR(H, 1, " + CHECKSUM_HEX_DIGITS
+                + "), '" + "X".repeat(CHECKSUM_HEX_DIGITS) + "')), 0) AS CHECKSUM FROM (" + inner + ")";
+
+        Map<String, Object> result = jdbcTemplate.queryForMap(sql, arguments.toArray());
+
+        RangeSummary summary = new RangeSummary();
+        summary.count = ((Number) result.get("ROW_COUNT")).longValue();
+        summary.checksum = ((Number) result.get("CHECKSUM")).longValue();
+        return summary;
+    }
+
+    /**
+     * MongoDB 端的筆數、具有 sourceHash 的筆數與聚合雜湊值，以單一 aggregation 在伺服器端完成
+     */
+    RangeSummary mongoSummary(Document filter) {
+        Document hasHash = new Document("$eq", Arrays.asList(new Document("$type", "$sourceHash"), "string"));
+
+        // 將 sourceHash 前 8 位十六進位逐字轉為數值
+        Document hexValue = new Document("$reduce", new Document("input",
+                new Document("$range", Arrays.asList(0, CHECKSUM_HEX_DIGITS)))
+                .append("initialValue", 0L)
+                .append("in", new Document("$add", Arrays.asList(
+                        new Document("$multiply", Arrays.asList("$$value", 16L)),
+                        new Document("$indexOfCP", Arrays.asList(HEX_DIGITS,
+                                new Document("$toUpper", new Document("$substrCP",
+                                        Arrays.asList("$sourceHash", "$$this", 1)))))))));
+
+        List<Document> pipeline = Arrays.asList(
+                new Document("$match", filter),
+                new Document("$group", new Document("_id", null)
+                        .append("count", new Document("$sum", 1L))
+                        .append("hashed", new Document("$sum",
+                                new Document("$cond", Arrays.asList(hasHash, 1L, 0L))))
+                        .append("checksum", new Document("$sum",
+                                new Document("$cond", Arrays.asList(hasHash, hexValue, 0L))))));
+
+        Document result = mongoTemplate.getCollection(migrationPlan.getCollection())
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .first();
+
+        RangeSummary summary = new RangeSummary();
+        if (result != null) {
+            summary.count = ((Number) result.get("count")).longValue();
+            summary.hashedCount = ((Number) result.get("hashed")).longValue();
+            summary.checksum = ((Number) result.get("checksum")).longValue();
+        }
+        return summary;
+    }
+
+    /**
+     * 以 Oracle 游標逐批讀取主鍵 (與雜湊值)，每批以 $in 查詢 MongoDB，找出遺漏與內容不同的文檔
+     */
+    private void findMissingAndChanged(ExecutionContext stepContext, boolean compareChecksum,
+                                       Differences differences) {
+        List<String> keyColumns = migrationPlan.getKeyColumns();
+        int keyCount = keyColumns.size();
+
+        List<Object> arguments = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", keyColumns));
+        if (compareChecksum) {
+            sql.append(", ").append(migrationPlan.getSourceHashExpression());
+        }
+        sql.append(" FROM ").append(migrationPlan.getSourceTable());
+        OracleSourceQuery.appendWhere(sql, OracleSourceQuery.conditions(migrationPlan, stepContext, arguments));
+
+        Map<String, String> batch = new LinkedHashMap<>();
+        jdbcTemplate.setFetchSize(OracleRowLookup.MAX_IN_LIST_SIZE);
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Object[] keyValues = new Object[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                keyValues[i] = rs.getObject(i + 1);
+            }
+            batch.put(migrationPlan.documentId(keyValues), compareChecksum ? rs.getString(keyCount + 1) : null);
+
+            if (batch.size() >= OracleRowLookup.MAX_IN_LIST_SIZE) {
+                compareBatch(batch, compareChecksum, differences);
+                batch.clear();
+            }
+        }, arguments.toArray());
+
+        if (!batch.isEmpty()) {
+            compareBatch(batch, compareChecksum, differences);
+        }
+    }
+
+    private void compareBatch(Map<String, String> sourceHashes, boolean compareChecksum, Differences differences) {
+        Document query = new Document("_id", new Document("$in", new ArrayList<>(sourceHashes.keySet())));
+        Map<String, String> targetHashes = new HashMap<>();
+        for (Document document : mongoTemplate.getCollection(migrationPlan.getCollection())
+                .find(query).projection(new Document("sourceHash", 1))) {
+            targetHashes.put(String.valueOf(document.get("_id")), document.getString("sourceHash"));
+        }
+
+        for (Map.Entry<String, String> entry : sourceHashes.entrySet()) {
+            if (!targetHashes.containsKey(entry.getKey())) {
+                differences.missing++;
+                differences.sample("missing", entry.getKey());
+            } else if (compareChecksum && !entry.getValue().equalsIgnoreCase(targetHashes.get(entry.getKey()))) {
+                differences.changed++;
+                differences.sample("changed", entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * 逐批讀取範圍內的 MongoDB 文檔主鍵，以 IN 清單查詢 Oracle，找出來源已不存在的文檔
+     */
+    private void findExtra(Document filter, Differences differences) {
+        Document projection = new Document("_id", 1);
+        for (String keyColumn : migrationPlan.getKeyColumns()) {
+            projection.append(dataField(keyColumn), 1);
+        }
+
+        Map<String, Object[]> batch = new LinkedHashMap<>();
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(migrationPlan.getCollection())
+                .find(filter).projection(projection).batchSize(OracleRowLookup.MAX_IN_LIST_SIZE).iterator()) {
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                Document data = document.get("data", Document.class);
+
+                Object[] keyValues = new Object[migrationPlan.getKeyColumns().size()];
+                for (int i = 0; i < keyValues.length; i++) {
+                    keyValues[i] = data != null ? data.get(migrationPlan.getKeyColumns().get(i).toUpperCase()) : null;
+                }
+                batch.put(String.valueOf(document.get("_id")), keyValues);
+
+                if (batch.size() >= OracleRowLookup.MAX_IN_LIST_SIZE) {
+                    checkExistence(batch, differences);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            checkExistence(batch, differences);
+        }
+    }
+
+    private void checkExistence(Map<String, Object[]> keysById, Differences differences) {
+        List<String> keyColumns = migrationPlan.getKeyColumns();
+        boolean composite = keyColumns.size() > 1;
+
+        String placeholder = composite
+                ? "(" + String.join(", ", Collections.nCopies(keyColumns.size(), "?")) + ")"
+                : "?";
+        String sql = "SELECT " + String.join(", ", keyColumns)
+                + " FROM " + migrationPlan.getSourceTable()
+                + " WHERE " + (composite ? "(" + String.join(", ", keyColumns) + ")" : keyColumns.get(0))
+                + " IN (" + String.join(", ", Collections.nCopies(keysById.size(), placeholder)) + ")";
+
+        List<Object> arguments = new ArrayList<>();
+        for (Object[] keyValues : keysById.values()) {
+            Collections.addAll(arguments, keyValues);
+        }
+
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query(sql, rs -> {
+            Object[] keyValues = new Object[keyColumns.size()];
+            for (int i = 0; i < keyValues.length; i++) {
+                keyValues[i] = rs.getObject(i + 1);
+            }
+            existing.add(migrationPlan.documentId(keyValues));
+        }, arguments.toArray());
+
+        for (String id : keysById.keySet()) {
+            if (!existing.contains(id)) {
+                differences.extra++;
+                differences.sample("extra", id);
+            }
+        }
+    }
+
+    /**
+     * 以分區主鍵範圍查詢 MongoDB 文檔的條件
+     * 比對文檔上原生型態的 rangeKey 欄位，由 rangeKey 索引直接定位範圍，不需掃描整個集合
+     */
+    Document mongoRangeFilter(ExecutionContext stepContext) {
+        Document range = new Document("$exists", true);
+        addBound(range, "$gte", stepContext.get(OracleSourcePartitioner.LOWER_BOUND_KEY));
+        addBound(range, "$lt", stepContext.get(OracleSourcePartitioner.UPPER_BOUND_KEY));
+        return new Document(MigrationPlan.RANGE_KEY_FIELD, range);
+    }
+
+    /**
+     * 沒有 rangeKey、不在任何範圍內的文檔
+     */
+    public static Document withoutRangeKeyFilter() {
+        return new Document(MigrationPlan.RANGE_KEY_FIELD, new Document("$exists", false));
+    }
+
+    private void addBound(Document range, String operator, Object bound) {
+        if (bound != null) {
+            range.append(operator, MigrationPlan.rangeKeyValue(bound));
+        }
+    }
+
+    private String dataField(String column) {
+        return "data." + column.toUpperCase();
+    }
+
+    private String rangeOf(ExecutionContext stepContext) {
+        return "[" + stepContext.get(OracleSourcePartitioner.LOWER_BOUND_KEY) + ", "
+                + stepContext.get(OracleSourcePartitioner.UPPER_BOUND_KEY) + ")";
+    }
+
+    static class RangeSummary {
+        long count;
+        long hashedCount;
+        long checksum;
+    }
+
+    private class Differences {
+        private long missing;
+        private long extra;
+        private long changed;
+        private final Collection<String> samples = new ArrayList<>();
+
+        private void sample(String type, String id) {
+            if (samples.size() < maxReportedDifferences) {
+                samples.add(type + ":" + id);
+            }
+        }
+    }
+}
@@ -1,71 +1,198 @@
 package com.example.migration.batch.writer;
 
-import com.example.migration.batch.listener.StepExecutionListener;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.exception.custom.MigrationException;
 import com.example.migration.model.document.MigrationDocument;
-import com.example.migration.model.dto.JobConfigDTO;
-import com.example.migration.service.ConfigurationService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * MongoDB 文檔寫入器
  * 將遷移文檔寫入 MongoDB
+ * 每個 chunk 以一次 unordered bulkWrite 送出，而非每筆文檔一次 upsert；
+ * initial_load 模式改以 insertMany 寫入空集合；
+ * raw_bson 模式直接以 MongoCollection 的 RawBsonDocument 型態 送出 processor 預先編碼的內容
  */
 @Component
 public class MongoDocumentWriter implements ItemWriter<MigrationDocument> {
 
+    private static final Logger log = LoggerFactory.getLogger(MongoDocumentWriter.class);
+
+    /** MongoDB 重複鍵錯誤代碼 */
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
     @Autowired
     @Qualifier("batchMongoTemplate")
     private MongoTemplate mongoTemplate;
 
     @Autowired
-    private ConfigurationService configurationService;
-    
-    @Autowired
-    private StepExecutionListener stepExecutionListener;
+    private MigrationPlan migrationPlan;
 
     @Override
     public void write(Chunk<? extends MigrationDocument> chunk) throws Exception {
         List<? extends MigrationDocument> documents = chunk.getItems();
         
-        String collectionName = getCollectionName();
+        if (documents.isEmpty()) {
+            return;
+        }
+        
+        String collectionName = migrationPlan.getTargetCollection();
+        
+        if (migrationPlan.isRawBson()) {
+            writeRawDocuments(collectionName, documents);
+            return;
+        }
+        
+        // unordered 模式下單筆失敗不會中斷其他文檔，驅動程式會依訊息大小自動拆批；
+        // 指定實體類別讓查詢與更新欄位依 MigrationDocument 的對應轉換
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                MigrationDocument.class, collectionName);
         
+        if (migrationPlan.isInitialLoad()) {
+            insertDocuments(bulkOps, collectionName, documents);
+        } else {
+            upsertDocuments(bulkOps, collectionName, documents);
+        }
+    }
+
+    /**
+     * 以 upsert 寫入，避免重複插入
+     * 以 _id 比對，與 initial_load、raw_bson 模式及變更偵測讀取器使用相同的文檔鍵
+     */
+    private void upsertDocuments(BulkOperations bulkOps, String collectionName,
+                                 List<? extends MigrationDocument> documents) {
         for (MigrationDocument document : documents) {
-            // 使用 upsert 操作，避免重複插入
-            Query query = new Query(Criteria.where("id").is(document.getId()));
+            Query query = new Query(Criteria.where("_id").is(document.getId()));
             
             Update update = new Update()
                     .set("sourceTable", document.getSourceTable())
                     .set("migrationTime", document.getMigrationTime())
                     .set("version", document.getVersion())
-                    .set("data", document.getData());
+                    .set("data", document.getData())
+                    .set("sourceHash", document.getSourceHash())
+                    .set(MigrationPlan.RANGE_KEY_FIELD, document.getRangeKey());
+            
+            bulkOps.upsert(query, update);
+        }
+        
+        try {
+            BulkWriteResult result = bulkOps.execute();
+            log.debug("Bulk upsert to {}: matched={}, modified={}, upserted={}", collectionName,
+                    result.getMatchedCount(), result.getModifiedCount(), result.getUpserts().size());
+        } catch (BulkOperationException e) {
+            throw mapBulkErrors(e.getErrors(), documents, e);
+        }
+    }
+
+    /**
+     * 初次載入模式：目標集合為空，直接以 insertMany 寫入，不需逐筆以 _id 查詢
+     * 重新啟動時已寫入的文檔會產生重複鍵錯誤，視為已成功
+     */
+    private void insertDocuments(BulkOperations bulkOps, String collectionName,
+                                 List<? extends MigrationDocument> documents) {
+        bulkOps.insert(documents);
+        
+        try {
+            BulkWriteResult result = bulkOps.execute();
+            log.debug("Bulk insert to {}: inserted={}", collectionName, result.getInsertedCount());
+        } catch (BulkOperationException e) {
+            List<BulkWriteError> failures = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_ERROR) {
+                    failures.add(error);
+                }
+            }
             
-            mongoTemplate.upsert(query, update, collectionName);
+            if (!failures.isEmpty()) {
+                throw mapBulkErrors(failures, documents, e);
+            }
+            
+            log.debug("Bulk insert to {}: {} documents already present", collectionName, e.getErrors().size());
         }
     }
 
-    private String getCollectionName() {
-    	// 從 Listener 中取出 StepExecution
-        StepExecution stepExecution = stepExecutionListener.getStepExecution();
+    /**
+     * 寫入預先編碼的 RawBsonDocument
+     * 驅動程式直接複製位元組至網路緩衝區，不再經過 MappingMongoConverter 與 Document 轉換
+     */
+    private void writeRawDocuments(String collectionName, List<? extends MigrationDocument> documents) {
+        MongoCollection<RawBsonDocument> collection = mongoTemplate.getDb()
+                .getCollection(collectionName, RawBsonDocument.class);
+        
+        boolean initialLoad = migrationPlan.isInitialLoad();
+        UpdateOptions upsert = new UpdateOptions().upsert(true);
+        
+        List<WriteModel<RawBsonDocument>> models = new ArrayList<>(documents.size());
+        for (MigrationDocument document : documents) {
+            if (initialLoad) {
+                models.add(new InsertOneModel<>(document.getEncoded()));
+            } else {
+                models.add(new UpdateOneModel<>(new BsonDocument("_id", new BsonString(document.getId())),
+                        document.getEncoded(), upsert));
+            }
+        }
+        
+        try {
+            BulkWriteResult result = collection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+            log.debug("Raw bulk write to {}: inserted={}, matched={}, upserted={}", collectionName,
+                    result.getInsertedCount(), result.getMatchedCount(), result.getUpserts().size());
+        } catch (MongoBulkWriteException e) {
+            List<BulkWriteError> failures = new ArrayList<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                // 初次載入重新啟動時已寫入的文檔視為成功
+                if (!initialLoad || error.getCode() != DUPLICATE_KEY_ERROR) {
+                    failures.add(error);
+                }
+            }
+            
+            if (!failures.isEmpty()) {
+                throw mapBulkErrors(failures, documents, e);
+            }
+        }
+    }
 
-        // 取得當前 Job 名稱
-        String jobName = stepExecution
-                            .getJobExecution()
-                            .getJobInstance()
-                            .getJobName();
+    /**
+     * 將 bulkWrite 的錯誤索引對應回文檔 ID
+     * 拋出例外後由 fault-tolerant step 逐筆重寫 chunk，只有真正失敗的文檔會計入 skip；
+     * upsert 為冪等操作，已成功的文檔重寫不會產生重複資料
+     */
+    private MigrationException mapBulkErrors(List<BulkWriteError> errors, List<? extends MigrationDocument> documents,
+                                             RuntimeException e) {
+        List<String> failedIds = new ArrayList<>();
+        for (BulkWriteError error : errors) {
+            String documentId = documents.get(error.getIndex()).getId();
+            failedIds.add(documentId);
+            log.warn("Bulk write failed for document {}: [{}] {}", documentId, error.getCode(), error.getMessage());
+        }
         
-    	JobConfigDTO config = configurationService.getJobConfig(jobName);
-        return config.getTarget().getMongodb().getCollection();
+        return new MigrationException("Bulk write failed for " + failedIds.size() + " of "
+                + documents.size() + " documents: " + failedIds, e);
     }
 }
\ No newline at end of file
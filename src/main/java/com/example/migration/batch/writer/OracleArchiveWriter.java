@@ -1,24 +1,35 @@
 package com.example.migration.batch.writer;
 
-import com.example.migration.batch.listener.StepExecutionListener;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.support.BsonValueSerializer;
+import com.example.migration.exception.custom.MigrationException;
 import com.example.migration.model.document.MigrationDocument;
-import com.example.migration.model.dto.JobConfigDTO;
-import com.example.migration.service.ConfigurationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.bson.BsonValue;
 
-import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Clob;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Oracle 封存寫入器
  * 將遷移記錄寫入 Oracle 封存表
+ * 以 JDBC batch 陣列綁定寫入，DATA 欄位以暫存 CLOB 綁定串流序列化的 JSON 內容；
+ * direct_path 啟用時每個 chunk 只送出一次批次，batch_size 設定不適用
  */
 @Component
 public class OracleArchiveWriter implements ItemWriter<MigrationDocument> {
@@ -28,45 +39,77 @@ public class OracleArchiveWriter implements ItemWriter<MigrationDocument> {
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private ConfigurationService configurationService;
-    
+    private MigrationPlan migrationPlan;
+
     @Autowired
-    private StepExecutionListener stepExecutionListener;
+    private ObjectMapper objectMapper;
+
+    @Value("${batch.archive.batch-size:500}")
+    private int defaultBatchSize;
+
+    private ObjectMapper archiveMapper;
+
+    @PostConstruct
+    public void init() {
+        // stream 模式的資料含有 BSON 值，需以 BSON 型態輸出為 JSON
+        SimpleModule bsonModule = new SimpleModule();
+        bsonModule.addSerializer(BsonValue.class, new BsonValueSerializer());
+        archiveMapper = objectMapper.copy().registerModule(bsonModule);
+    }
 
     @Override
     public void write(Chunk<? extends MigrationDocument> chunk) throws Exception {
         List<? extends MigrationDocument> documents = chunk.getItems();
         
-    	// 從 Listener 中取出 StepExecution
-        StepExecution stepExecution = stepExecutionListener.getStepExecution();
-
-        // 取得當前 Job 名稱
-        String jobName = stepExecution
-                            .getJobExecution()
-                            .getJobInstance()
-                            .getJobName();
-        
-    	JobConfigDTO config = configurationService.getJobConfig(jobName);
-        if (!config.getArchive().isEnabled()) {
+        if (!migrationPlan.isArchiveEnabled() || documents.isEmpty()) {
             return;
         }
         
-        String archiveTable = config.getArchive().getTargetTable();
-        String insertSql = buildInsertSql(archiveTable);
-        
-        for (MigrationDocument document : documents) {
-            jdbcTemplate.update(insertSql,
-                    document.getId(),
-                    document.getSourceTable(),
-                    new Timestamp(System.currentTimeMillis()),
-                    "COMPLETED",
-                    document.getData().toString()
-            );
+        String insertSql = buildInsertSql(migrationPlan.getArchiveTable(), migrationPlan.isArchiveDirectPath());
+        Timestamp migrationTime = new Timestamp(System.currentTimeMillis());
+
+        // 直接路徑寫入後同一交易不可再寫入該表 (ORA-12838)，整個 chunk 只能送出一次批次
+        int batchSize = migrationPlan.isArchiveDirectPath() ? documents.size()
+                : migrationPlan.getArchiveBatchSize() != null ? migrationPlan.getArchiveBatchSize() : defaultBatchSize;
+
+        List<Clob> clobs = new ArrayList<>(documents.size());
+        try {
+            jdbcTemplate.batchUpdate(insertSql, documents, batchSize, (ps, document) -> {
+                Clob data = ps.getConnection().createClob();
+                clobs.add(data);
+                writeJson(document, data);
+
+                ps.setString(1, document.getId());
+                ps.setString(2, document.getSourceTable());
+                ps.setTimestamp(3, migrationTime);
+                ps.setString(4, "COMPLETED");
+                ps.setClob(5, data);
+            });
+        } finally {
+            for (Clob clob : clobs) {
+                clob.free();
+            }
+        }
+    }
+
+    /**
+     * 將文檔資料直接序列化至暫存 CLOB 的字元串流，不先產生完整的 JSON 字串
+     */
+    private void writeJson(MigrationDocument document, Clob data) throws SQLException {
+        try (Writer writer = data.setCharacterStream(1)) {
+            archiveMapper.writeValue(writer, document.getData());
+        } catch (IOException e) {
+            throw new MigrationException("Error serializing archive data for document: " + document.getId(), e);
         }
     }
 
-    private String buildInsertSql(String archiveTable) {
-        return "INSERT INTO " + archiveTable + 
+    /**
+     * 建立封存 INSERT 語法
+     * directPath 啟用時加上 APPEND_VALUES 提示，以直接路徑寫入高水位線之上的新區塊；
+     * 直接路徑寫入會鎖定整個封存表，平行分區的 chunk 交易會依序等待，且每個 chunk 各自佔用新區塊
+     */
+    private String buildInsertSql(String archiveTable, boolean directPath) {
+        return "INSERT " + (directPath ? "/*+ APPEND_VALUES */ " : "") + "INTO " + archiveTable +
                " (DOCUMENT_ID, SOURCE_TABLE, MIGRATION_TIME, STATUS, DATA) " +
                "VALUES (?, ?, ?, ?, ?)";
     }
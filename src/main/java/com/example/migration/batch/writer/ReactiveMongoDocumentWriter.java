@@ -0,0 +1,226 @@
+package com.example.migration.batch.writer;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.exception.custom.MigrationException;
+import com.example.migration.model.document.MigrationDocument;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * MongoDB 非同步文檔寫入器
+ * 以 Reactive Streams 驅動程式送出 processor 預先編碼的 RawBsonDocument。
+ * chunk 依 batch.writer.reactive.batch-size 拆為多個 unordered bulkWrite 同時送出，
+ * 每個集合同時未確認的批次數以 Semaphore 限制 (batch.writer.reactive.max-in-flight)，
+ * 額度用完時寫入執行緒阻塞等待，形成背壓。
+ * 所有批次確認後 chunk 才完成，失敗處理與 MongoDocumentWriter 相同
+ */
+@Component
+public class ReactiveMongoDocumentWriter implements ItemWriter<MigrationDocument> {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveMongoDocumentWriter.class);
+
+    /** MongoDB 重複鍵錯誤代碼 */
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    @Autowired
+    private MongoClient reactiveMongoClient;
+
+    @Autowired
+    private MigrationPlan migrationPlan;
+
+    @Value("${spring.data.mongodb.database}")
+    private String database;
+
+    @Value("${batch.writer.reactive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${batch.writer.reactive.max-in-flight:4}")
+    private int maxInFlight;
+
+    /** 各集合的未確認批次額度，由所有分區與處理執行緒共用 */
+    private final Map<String, Semaphore> inFlightPermits = new ConcurrentHashMap<>();
+
+    @Override
+    public void write(Chunk<? extends MigrationDocument> chunk) throws Exception {
+        List<? extends MigrationDocument> documents = chunk.getItems();
+
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        String collectionName = migrationPlan.getTargetCollection();
+        MongoCollection<RawBsonDocument> collection = reactiveMongoClient.getDatabase(database)
+                .getCollection(collectionName, RawBsonDocument.class);
+        Semaphore permits = inFlightPermits.computeIfAbsent(collectionName, name -> new Semaphore(maxInFlight));
+
+        boolean initialLoad = migrationPlan.isInitialLoad();
+        List<CompletableFuture<BulkWriteResult>> batches = new ArrayList<>();
+
+        for (int from = 0; from < documents.size(); from += batchSize) {
+            List<? extends MigrationDocument> batch = documents.subList(from, Math.min(from + batchSize, documents.size()));
+
+            // 額度不足時等待先前的批次確認
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // 已送出的批次仍需等待確認，避免 chunk 回滾重寫時與未完成的批次交錯
+                awaitQuietly(batches);
+                throw e;
+            }
+
+            CompletableFuture<BulkWriteResult> result = new CompletableFuture<>();
+            result.whenComplete((r, e) -> permits.release());
+            try {
+                collection.bulkWrite(toWriteModels(batch, initialLoad), new BulkWriteOptions().ordered(false))
+                        .subscribe(new ResultSubscriber(result));
+            } catch (RuntimeException e) {
+                // 送出前同步拋出的例外不會經過 subscriber，以失敗完成批次並釋放額度
+                result.completeExceptionally(e);
+            }
+            batches.add(result);
+        }
+
+        awaitBatches(batches, documents, initialLoad, collectionName);
+    }
+
+    private List<WriteModel<RawBsonDocument>> toWriteModels(List<? extends MigrationDocument> batch,
+                                                            boolean initialLoad) {
+        UpdateOptions upsert = new UpdateOptions().upsert(true);
+
+        List<WriteModel<RawBsonDocument>> models = new ArrayList<>(batch.size());
+        for (MigrationDocument document : batch) {
+            if (initialLoad) {
+                models.add(new InsertOneModel<>(document.getEncoded()));
+            } else {
+                models.add(new UpdateOneModel<>(new BsonDocument("_id", new BsonString(document.getId())),
+                        document.getEncoded(), upsert));
+            }
+        }
+        return models;
+    }
+
+    /**
+     * 等待 chunk 的所有批次確認，並將各批次的錯誤索引對應回文檔 ID
+     * 已送出的批次即使部分失敗也會全部等待完成，避免 chunk 重寫時與未完成的批次交錯
+     */
+    private void awaitBatches(List<CompletableFuture<BulkWriteResult>> batches,
+                              List<? extends MigrationDocument> documents, boolean initialLoad,
+                              String collectionName) throws InterruptedException {
+        List<String> failedIds = new ArrayList<>();
+        Throwable cause = null;
+
+        for (int i = 0; i < batches.size(); i++) {
+            int offset = i * batchSize;
+            try {
+                BulkWriteResult result = batches.get(i).get();
+                log.debug("Reactive bulk write to {}: inserted={}, matched={}, upserted={}", collectionName,
+                        result.getInsertedCount(), result.getMatchedCount(), result.getUpserts().size());
+            } catch (ExecutionException e) {
+                Throwable failure = e.getCause();
+
+                if (!(failure instanceof MongoBulkWriteException)) {
+                    // 網路或伺服器錯誤，整個批次視為失敗
+                    int end = Math.min(offset + batchSize, documents.size());
+                    for (int index = offset; index < end; index++) {
+                        failedIds.add(documents.get(index).getId());
+                    }
+                    cause = failure;
+                    continue;
+                }
+
+                for (BulkWriteError error : ((MongoBulkWriteException) failure).getWriteErrors()) {
+                    // 初次載入重新啟動時已寫入的文檔視為成功
+                    if (initialLoad && error.getCode() == DUPLICATE_KEY_ERROR) {
+                        continue;
+                    }
+                    String documentId = documents.get(offset + error.getIndex()).getId();
+                    failedIds.add(documentId);
+                    cause = failure;
+                    log.warn("Bulk write failed for document {}: [{}] {}", documentId, error.getCode(),
+                            error.getMessage());
+                }
+            }
+        }
+
+        if (!failedIds.isEmpty()) {
+            throw new MigrationException("Bulk write failed for " + failedIds.size() + " of "
+                    + documents.size() + " documents: " + failedIds, cause);
+        }
+    }
+
+    /**
+     * 等待已送出的批次完成，不處理結果，且不受執行緒中斷影響
+     */
+    private void awaitQuietly(List<CompletableFuture<BulkWriteResult>> batches) {
+        for (CompletableFuture<BulkWriteResult> batch : batches) {
+            try {
+                batch.join();
+            } catch (CompletionException | CancellationException e) {
+                // 呼叫端已因中斷放棄此 chunk，批次結果不再處理
+            }
+        }
+    }
+
+    /**
+     * 將 bulkWrite 的單一結果轉為 CompletableFuture
+     */
+    private static class ResultSubscriber implements Subscriber<BulkWriteResult> {
+
+        private final CompletableFuture<BulkWriteResult> result;
+
+        ResultSubscriber(CompletableFuture<BulkWriteResult> result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(BulkWriteResult bulkWriteResult) {
+            result.complete(bulkWriteResult);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            // 單一結果已於 onNext 完成
+        }
+    }
+}
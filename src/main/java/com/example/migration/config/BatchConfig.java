@@ -39,6 +39,9 @@ public class BatchConfig {
     @Value("${batch.executor.thread-name-prefix:batch-task-}")
     private String threadNamePrefix;
 
+    @Value("${batch.worker.executor.pool-size:8}")
+    private int workerPoolSize;
+
     /**
      * 配置批次任務執行器
      */
@@ -55,6 +58,22 @@ public class BatchConfig {
         return executor;
     }
 
+    /**
+     * 配置 worker step 處理執行緒
+     * 與 batchTaskExecutor 分開，避免分區執行緒與 chunk 處理執行緒互相佔用
+     */
+    @Bean(name = "workerTaskExecutor")
+    public TaskExecutor workerTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerPoolSize);
+        executor.setMaxPoolSize(workerPoolSize);
+        executor.setThreadNamePrefix("batch-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * 配置批次事務管理器
      */
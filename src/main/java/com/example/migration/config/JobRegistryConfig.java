@@ -0,0 +1,137 @@
+package com.example.migration.config;
+
+import com.example.migration.batch.job.MigrationJobConfig;
+import com.example.migration.model.dto.JobConfigDTO;
+import com.example.migration.service.ConfigurationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.configuration.DuplicateJobException;
+import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.configuration.support.ReferenceJobFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 作業註冊配置類
+ * 啟動時將所有 Job bean 註冊到 JobRegistry，並為每個 YAML 配置建立同名的遷移作業：
+ * chunk 大小取自 chunk_size，分區數取自 grid_size，每個作業擁有獨立的分區執行緒池，
+ * 多個資料表的遷移可同時執行，不會互相佔用執行緒。
+ * chunk 大小與執行緒池大小在註冊時固定，配置熱重載後不會變更，需重新啟動應用程式才會套用
+ */
+@Configuration
+public class JobRegistryConfig implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRegistryConfig.class);
+
+    @Autowired
+    private JobRegistry jobRegistry;
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private MigrationJobConfig migrationJobConfig;
+
+    @Autowired
+    private List<Job> jobs;
+
+    @Value("${batch.chunk-size:1000}")
+    private int defaultChunkSize;
+
+    @Value("${batch.partition.grid-size:4}")
+    private int defaultGridSize;
+
+    /** 各配置作業的分區執行緒池 */
+    private final Map<String, ThreadPoolTaskExecutor> partitionExecutors = new ConcurrentHashMap<>();
+
+    /** 各配置作業註冊時的 chunk 大小 */
+    private final Map<String, Integer> registeredChunkSizes = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Job job : jobs) {
+            register(job);
+        }
+
+        for (String configName : configurationService.getAllJobConfigs().keySet()) {
+            try {
+                registerMigrationJob(configName);
+            } catch (RuntimeException e) {
+                logger.error("Error registering job for configuration {}: {}", configName, e.getMessage());
+            }
+        }
+
+        logger.info("Registered jobs: {}", jobRegistry.getJobNames());
+    }
+
+    /**
+     * 為配置建立並註冊同名的遷移作業，已註冊時不處理
+     * 執行期間新增的配置於第一次啟動時註冊；已註冊作業的 chunk_size 或 grid_size 變更時只記錄警告
+     */
+    public synchronized void registerMigrationJob(String configName) {
+        JobConfigDTO config = configurationService.getJobConfig(configName);
+        Integer gridSize = config.getSource().getOracle().getGridSize();
+        int partitions = gridSize != null ? gridSize : defaultGridSize;
+        int chunkSize = config.getChunkSize() != null ? config.getChunkSize() : defaultChunkSize;
+
+        if (jobRegistry.getJobNames().contains(configName)) {
+            warnIfChanged(configName, chunkSize, partitions);
+            return;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitions);
+        executor.setMaxPoolSize(partitions);
+        executor.setThreadNamePrefix(configName + "-partition-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+
+        // 步驟名稱加上配置名稱前綴，同時執行時步驟記錄與監控指標不會混在一起
+        if (register(migrationJobConfig.createMigrationJob(configName, configName + ".", chunkSize, executor))) {
+            partitionExecutors.put(configName, executor);
+            registeredChunkSizes.put(configName, chunkSize);
+            logger.info("Registered migration job {} (chunk size {}, {} partitions)", configName, chunkSize,
+                    partitions);
+        } else {
+            executor.shutdown();
+        }
+    }
+
+    private void warnIfChanged(String configName, int chunkSize, int partitions) {
+        Integer registeredChunkSize = registeredChunkSizes.get(configName);
+        ThreadPoolTaskExecutor executor = partitionExecutors.get(configName);
+        if ((registeredChunkSize != null && registeredChunkSize != chunkSize)
+                || (executor != null && executor.getMaxPoolSize() != partitions)) {
+            logger.warn("Configuration {} changed to chunk size {} with {} partitions; job keeps chunk size {} "
+                    + "and {} partition threads until restart", configName, chunkSize, partitions,
+                    registeredChunkSize, executor != null ? executor.getMaxPoolSize() : null);
+        }
+    }
+
+    private boolean register(Job job) {
+        try {
+            jobRegistry.register(new ReferenceJobFactory(job));
+            return true;
+        } catch (DuplicateJobException e) {
+            logger.warn("Job {} is already registered, skipping", job.getName());
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolTaskExecutor executor : partitionExecutors.values()) {
+            executor.shutdown();
+        }
+    }
+}
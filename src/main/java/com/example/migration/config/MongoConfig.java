@@ -72,9 +72,22 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Override
     @Bean
     public MongoClient mongoClient() {
+        return MongoClients.create(clientSettings());
+    }
+
+    /**
+     * 配置 Reactive Streams MongoDB 客戶端
+     * 供非同步批次寫入使用，連線池設定與同步客戶端相同
+     */
+    @Bean
+    public com.mongodb.reactivestreams.client.MongoClient reactiveMongoClient() {
+        return com.mongodb.reactivestreams.client.MongoClients.create(clientSettings());
+    }
+
+    private MongoClientSettings clientSettings() {
         ConnectionString connectionString = new ConnectionString(mongoUri);
         
-        MongoClientSettings settings = MongoClientSettings.builder()
+        return MongoClientSettings.builder()
                 .applyConnectionString(connectionString)
                 .applyToConnectionPoolSettings(builder -> 
                     builder.maxSize(maxPoolSize)
@@ -95,8 +108,6 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
                     builder.serverSelectionTimeout(serverSelectionTimeout, TimeUnit.MILLISECONDS)
                 )
                 .build();
-        
-        return MongoClients.create(settings);
     }
 
     /**
@@ -1,6 +1,8 @@
 package com.example.migration.model.document;
 
+import org.bson.RawBsonDocument;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -24,10 +26,24 @@ public class MigrationDocument {
 
     private Map<String, Object> data;
 
+    /** 來源 CLOB 內容的雜湊值，由 Oracle 端計算，用於判斷資料是否變更 */
+    private String sourceHash;
+
+    /** 第一個主鍵欄位的原生型態值 (數值為 Decimal128)，驗證時以索引依主鍵範圍查詢 */
+    private Object rangeKey;
+
     private String status = "MIGRATED";
 
     private String errorMessage;
 
+    /** raw_bson 模式下由 processor 預先編碼的內容，不寫入文檔 */
+    @Transient
+    private RawBsonDocument encoded;
+
+    /** 來源主鍵值 (依 key_columns 順序)，寫入失敗時記錄至 dead letter，不寫入文檔 */
+    @Transient
+    private Object[] keyValues;
+
     // Constructors
     public MigrationDocument() {}
 
@@ -54,12 +70,24 @@ public class MigrationDocument {
     public Map<String, Object> getData() { return data; }
     public void setData(Map<String, Object> data) { this.data = data; }
 
+    public String getSourceHash() { return sourceHash; }
+    public void setSourceHash(String sourceHash) { this.sourceHash = sourceHash; }
+
+    public Object getRangeKey() { return rangeKey; }
+    public void setRangeKey(Object rangeKey) { this.rangeKey = rangeKey; }
+
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
 
+    public RawBsonDocument getEncoded() { return encoded; }
+    public void setEncoded(RawBsonDocument encoded) { this.encoded = encoded; }
+
+    public Object[] getKeyValues() { return keyValues; }
+    public void setKeyValues(Object[] keyValues) { this.keyValues = keyValues; }
+
     @Override
     public String toString() {
         return "MigrationDocument{" +
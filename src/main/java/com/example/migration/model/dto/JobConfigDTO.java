@@ -27,7 +27,8 @@ public class JobConfigDTO {
 
     private Integer batchSize = 1000;
 
-    private Integer chunkSize = 100;
+    /** 每次提交的筆數，未設定時使用 batch.chunk-size */
+    private Integer chunkSize;
 
     // Nested Classes
     public static class ScheduleConfig {
@@ -67,6 +68,30 @@ public class JobConfigDTO {
 
         private String whereCondition;
 
+        /** 分區模式: none / key_range (MIN/MAX 切分) / ntile (NTILE 分位切分) / rowid (extent ROWID 範圍切分) */
+        private String partitionMode = "none";
+
+        /** 分區數量，未設定時使用 batch.partition.grid-size */
+        private Integer gridSize;
+
+        /** CLOB 讀取模式: text (讀成 String 後解析) / stream (字元串流直接轉 BSON) / oson (以二進位 OSON 讀取並直接轉 BSON，Oracle 21c 以上) */
+        private String jsonMode = "text";
+
+        /** 讀取模式: cursor (單一游標) / keyset (依主鍵分頁，記錄最後鍵值以便續跑) */
+        private String readMode = "cursor";
+
+        /** keyset 模式每頁筆數，未設定時使用 batch.reader.page-size */
+        private Integer pageSize;
+
+        /** 增量遷移水位欄位 (遞增的時間或序號欄位，或 ORA_ROWSCN)，未設定時每次全量讀取 */
+        private String watermarkColumn;
+
+        /** 變更偵測: 先比對 Oracle 端計算的 CLOB 雜湊值與 MongoDB 文檔的 sourceHash，只讀取有變更的資料列 */
+        private boolean changeDetection = false;
+
+        /** 一致性快照讀取: 作業開始時取得 SCN，所有分區以 AS OF SCN 讀取同一時間點的資料 (需 FLASHBACK 權限) */
+        private boolean snapshotRead = false;
+
         // Getters and Setters
         public String getOwner() { return owner; }
         public void setOwner(String owner) { this.owner = owner; }
@@ -82,6 +107,30 @@ public class JobConfigDTO {
 
         public String getWhereCondition() { return whereCondition; }
         public void setWhereCondition(String whereCondition) { this.whereCondition = whereCondition; }
+
+        public String getPartitionMode() { return partitionMode; }
+        public void setPartitionMode(String partitionMode) { this.partitionMode = partitionMode; }
+
+        public Integer getGridSize() { return gridSize; }
+        public void setGridSize(Integer gridSize) { this.gridSize = gridSize; }
+
+        public String getJsonMode() { return jsonMode; }
+        public void setJsonMode(String jsonMode) { this.jsonMode = jsonMode; }
+
+        public String getReadMode() { return readMode; }
+        public void setReadMode(String readMode) { this.readMode = readMode; }
+
+        public Integer getPageSize() { return pageSize; }
+        public void setPageSize(Integer pageSize) { this.pageSize = pageSize; }
+
+        public String getWatermarkColumn() { return watermarkColumn; }
+        public void setWatermarkColumn(String watermarkColumn) { this.watermarkColumn = watermarkColumn; }
+
+        public boolean isChangeDetection() { return changeDetection; }
+        public void setChangeDetection(boolean changeDetection) { this.changeDetection = changeDetection; }
+
+        public boolean isSnapshotRead() { return snapshotRead; }
+        public void setSnapshotRead(boolean snapshotRead) { this.snapshotRead = snapshotRead; }
     }
 
     public static class TargetConfig {
@@ -99,7 +148,17 @@ public class JobConfigDTO {
         @NotBlank(message = "集合名稱不能為空")
         private String collection;
 
-        private boolean changeCollection = true;
+        /** 全量重載：寫入暫存集合，完成後建立索引並以 renameCollection 置換目標集合 */
+        private boolean changeCollection = false;
+
+        /** 寫入模式: upsert (依 _id 更新或新增) / initial_load (空集合以 insertMany 寫入) */
+        private String writeMode = "upsert";
+
+        /** 是否於 processor 預先編碼為 RawBsonDocument，由 MongoCollection 直接寫入，不經過 MappingMongoConverter */
+        private boolean rawBson = false;
+
+        /** 是否以 Reactive Streams 驅動程式非同步寫入，同時保留多個未確認的批次 (內容同樣預先編碼) */
+        private boolean reactiveWrite = false;
 
         // Getters and Setters
         public String getDatabase() { return database; }
@@ -110,18 +169,39 @@ public class JobConfigDTO {
 
         public boolean isChangeCollection() { return changeCollection; }
         public void setChangeCollection(boolean changeCollection) { this.changeCollection = changeCollection; }
+
+        public String getWriteMode() { return writeMode; }
+        public void setWriteMode(String writeMode) { this.writeMode = writeMode; }
+
+        public boolean isRawBson() { return rawBson; }
+        public void setRawBson(boolean rawBson) { this.rawBson = rawBson; }
+
+        public boolean isReactiveWrite() { return reactiveWrite; }
+        public void setReactiveWrite(boolean reactiveWrite) { this.reactiveWrite = reactiveWrite; }
     }
 
     public static class ArchiveConfig {
         private boolean enabled = false;
         private String targetTable;
 
+        /** JDBC 批次大小，未設定時使用 batch.archive.batch-size */
+        private Integer batchSize;
+
+        /** 是否以 APPEND_VALUES 直接路徑寫入 */
+        private boolean directPath = false;
+
         // Getters and Setters
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
 
         public String getTargetTable() { return targetTable; }
         public void setTargetTable(String targetTable) { this.targetTable = targetTable; }
+
+        public Integer getBatchSize() { return batchSize; }
+        public void setBatchSize(Integer batchSize) { this.batchSize = batchSize; }
+
+        public boolean isDirectPath() { return directPath; }
+        public void setDirectPath(boolean directPath) { this.directPath = directPath; }
     }
 
     // Main Class Getters and Setters
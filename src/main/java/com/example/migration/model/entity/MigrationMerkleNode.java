@@ -0,0 +1,116 @@
+package com.example.migration.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 驗證 Merkle 樹節點實體
+ * 第 0 層為葉節點，每個葉節點對應一個主鍵範圍 [LOWER_BOUND, UPPER_BOUND)，
+ * 保存最近一次驗證時 Oracle 與 MongoDB 兩端的範圍雜湊值；
+ * 上層節點的雜湊值由兩個子節點組合而成，只保存最上層的根節點，兩端根節點相同代表整個資料表一致
+ */
+@Entity
+@Table(name = "MIGRATION_MERKLE_NODE")
+public class MigrationMerkleNode {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "JOB_NAME", nullable = false)
+    private String jobName;
+
+    @Column(name = "SOURCE_TABLE", nullable = false)
+    private String sourceTable;
+
+    @Column(name = "NODE_LEVEL", nullable = false)
+    private Integer nodeLevel;
+
+    @Column(name = "NODE_POSITION", nullable = false)
+    private Integer nodePosition;
+
+    /** 範圍下界 (含) 的文字表示，依 BOUND_TYPE 轉回原型態，null 代表無下界 */
+    @Column(name = "LOWER_BOUND")
+    private String lowerBound;
+
+    /** 範圍上界 (不含)，null 代表無上界 */
+    @Column(name = "UPPER_BOUND")
+    private String upperBound;
+
+    /** NUMBER / TIMESTAMP / STRING */
+    @Column(name = "BOUND_TYPE")
+    private String boundType;
+
+    @Column(name = "ROW_COUNT")
+    private Long rowCount;
+
+    @Column(name = "ORACLE_HASH")
+    private String oracleHash;
+
+    @Column(name = "MONGO_HASH")
+    private String mongoHash;
+
+    /** 範圍在上次驗證後有增量遷移寫入，或尚未驗證 */
+    @Column(name = "DIRTY", nullable = false)
+    private Boolean dirty;
+
+    @Column(name = "JOB_EXECUTION_ID")
+    private Long jobExecutionId;
+
+    @Column(name = "UPDATED_TIME")
+    private LocalDateTime updatedTime;
+
+    // Constructors
+    public MigrationMerkleNode() {}
+
+    public MigrationMerkleNode(String jobName, String sourceTable, Integer nodeLevel, Integer nodePosition) {
+        this.jobName = jobName;
+        this.sourceTable = sourceTable;
+        this.nodeLevel = nodeLevel;
+        this.nodePosition = nodePosition;
+        this.dirty = false;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+
+    public String getSourceTable() { return sourceTable; }
+    public void setSourceTable(String sourceTable) { this.sourceTable = sourceTable; }
+
+    public Integer getNodeLevel() { return nodeLevel; }
+    public void setNodeLevel(Integer nodeLevel) { this.nodeLevel = nodeLevel; }
+
+    public Integer getNodePosition() { return nodePosition; }
+    public void setNodePosition(Integer nodePosition) { this.nodePosition = nodePosition; }
+
+    public String getLowerBound() { return lowerBound; }
+    public void setLowerBound(String lowerBound) { this.lowerBound = lowerBound; }
+
+    public String getUpperBound() { return upperBound; }
+    public void setUpperBound(String upperBound) { this.upperBound = upperBound; }
+
+    public String getBoundType() { return boundType; }
+    public void setBoundType(String boundType) { this.boundType = boundType; }
+
+    public Long getRowCount() { return rowCount; }
+    public void setRowCount(Long rowCount) { this.rowCount = rowCount; }
+
+    public String getOracleHash() { return oracleHash; }
+    public void setOracleHash(String oracleHash) { this.oracleHash = oracleHash; }
+
+    public String getMongoHash() { return mongoHash; }
+    public void setMongoHash(String mongoHash) { this.mongoHash = mongoHash; }
+
+    public Boolean getDirty() { return dirty; }
+    public void setDirty(Boolean dirty) { this.dirty = dirty; }
+
+    public Long getJobExecutionId() { return jobExecutionId; }
+    public void setJobExecutionId(Long jobExecutionId) { this.jobExecutionId = jobExecutionId; }
+
+    public LocalDateTime getUpdatedTime() { return updatedTime; }
+    public void setUpdatedTime(LocalDateTime updatedTime) { this.updatedTime = updatedTime; }
+}
@@ -0,0 +1,61 @@
+package com.example.migration.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 增量遷移高水位實體
+ * 每個作業保存上次成功執行時讀取到的最大水位值
+ */
+@Entity
+@Table(name = "MIGRATION_WATERMARK")
+public class MigrationWatermark {
+
+    @Id
+    @Column(name = "JOB_NAME", nullable = false)
+    private String jobName;
+
+    @Column(name = "WATERMARK_COLUMN", nullable = false)
+    private String watermarkColumn;
+
+    /** 水位值的文字表示，依 VALUE_TYPE 轉回原型態 */
+    @Column(name = "WATERMARK_VALUE", nullable = false)
+    private String watermarkValue;
+
+    /** NUMBER / TIMESTAMP / STRING */
+    @Column(name = "VALUE_TYPE", nullable = false)
+    private String valueType;
+
+    @Column(name = "JOB_EXECUTION_ID")
+    private Long jobExecutionId;
+
+    @Column(name = "UPDATED_TIME")
+    private LocalDateTime updatedTime;
+
+    // Constructors
+    public MigrationWatermark() {}
+
+    public MigrationWatermark(String jobName, String watermarkColumn) {
+        this.jobName = jobName;
+        this.watermarkColumn = watermarkColumn;
+    }
+
+    // Getters and Setters
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+
+    public String getWatermarkColumn() { return watermarkColumn; }
+    public void setWatermarkColumn(String watermarkColumn) { this.watermarkColumn = watermarkColumn; }
+
+    public String getWatermarkValue() { return watermarkValue; }
+    public void setWatermarkValue(String watermarkValue) { this.watermarkValue = watermarkValue; }
+
+    public String getValueType() { return valueType; }
+    public void setValueType(String valueType) { this.valueType = valueType; }
+
+    public Long getJobExecutionId() { return jobExecutionId; }
+    public void setJobExecutionId(Long jobExecutionId) { this.jobExecutionId = jobExecutionId; }
+
+    public LocalDateTime getUpdatedTime() { return updatedTime; }
+    public void setUpdatedTime(LocalDateTime updatedTime) { this.updatedTime = updatedTime; }
+}
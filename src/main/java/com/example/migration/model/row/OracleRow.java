@@ -0,0 +1,121 @@
+package com.example.migration.model.row;
+
+import org.bson.RawBsonDocument;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Oracle 資料列
+ * 以陣列保存欄位值並共用 {@link RowSchema}，取代每列一個 HashMap 的 OracleEntity，
+ * 欄位依索引存取 (由 0 起算，順序與 SELECT 欄位相同)
+ */
+public class OracleRow {
+
+    /** 物件標頭與陣列本身的估計大小 */
+    private static final long ROW_OVERHEAD = 64;
+
+    /** 非字串欄位值 (數值、日期、其他 BSON 值) 的估計大小 */
+    private static final long VALUE_OVERHEAD = 32;
+
+    private final RowSchema schema;
+    private final Object[] values;
+
+    /** 來源內容雜湊值，僅在啟用變更偵測時設定 */
+    private final String sourceHash;
+
+    public OracleRow(RowSchema schema, Object[] values) {
+        this(schema, values, null);
+    }
+
+    public OracleRow(RowSchema schema, Object[] values, String sourceHash) {
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " values but got " + values.length);
+        }
+        this.schema = schema;
+        this.values = values;
+        this.sourceHash = sourceHash;
+    }
+
+    /**
+     * 回傳附帶來源雜湊值的資料列，欄位值共用同一個陣列
+     */
+    public OracleRow withSourceHash(String sourceHash) {
+        return new OracleRow(schema, values, sourceHash);
+    }
+
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * 依欄位名稱取值，欄位不存在時回傳 null
+     */
+    public Object getValue(String columnName) {
+        int index = schema.indexOf(columnName);
+        return index >= 0 ? values[index] : null;
+    }
+
+    public boolean isNull(int index) {
+        return values[index] == null;
+    }
+
+    public String getString(int index) {
+        Object value = values[index];
+        return value != null ? value.toString() : null;
+    }
+
+    public Long getLong(int index) {
+        Object value = values[index];
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Number ? ((Number) value).longValue() : Long.valueOf(value.toString());
+    }
+
+    public BigDecimal getBigDecimal(int index) {
+        Object value = values[index];
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    /**
+     * 估計資料列佔用的記憶體位元組數，供預讀緩衝區依位元組數限制容量
+     * 字串以每字元 2 位元組計算，已編碼的 BSON 文件以實際長度計算，其他欄位以固定值估計
+     */
+    public long estimatedSize() {
+        long size = ROW_OVERHEAD;
+        for (Object value : values) {
+            if (value instanceof String) {
+                size += VALUE_OVERHEAD + 2L * ((String) value).length();
+            } else if (value instanceof RawBsonDocument) {
+                size += VALUE_OVERHEAD + ((RawBsonDocument) value).getByteBuffer().remaining();
+            } else if (value != null) {
+                size += VALUE_OVERHEAD;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "OracleRow{" +
+                "schema=" + schema +
+                ", values=" + Arrays.toString(values) +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.migration.model.row;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 資料列欄位描述
+ * 每個游標只由 ResultSetMetaData 建立一次，所有資料列共用同一個不可變實例
+ */
+public class RowSchema {
+
+    /** Oracle 原生 JSON 型態 (oracle.jdbc.OracleTypes.JSON) */
+    private static final int ORACLE_JSON = 2016;
+
+    private final String[] columnNames;
+    private final int[] columnTypes;
+    private final Map<String, Integer> indexByName;
+
+    private RowSchema(String[] columnNames, int[] columnTypes) {
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+        this.indexByName = new HashMap<>(columnNames.length * 2);
+        for (int i = 0; i < columnNames.length; i++) {
+            indexByName.putIfAbsent(columnNames[i], i);
+        }
+    }
+
+    /**
+     * 由查詢結果的中繼資料建立欄位描述
+     */
+    public static RowSchema from(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        int[] types = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = metaData.getColumnName(i + 1);
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        return new RowSchema(names, types);
+    }
+
+    public int size() {
+        return columnNames.length;
+    }
+
+    /**
+     * 欄位名稱 (索引由 0 起算)
+     */
+    public String getColumnName(int index) {
+        return columnNames[index];
+    }
+
+    /**
+     * JDBC 欄位型態，見 {@link java.sql.Types}
+     */
+    public int getColumnType(int index) {
+        return columnTypes[index];
+    }
+
+    public boolean isClob(int index) {
+        return columnTypes[index] == Types.CLOB || columnTypes[index] == Types.NCLOB;
+    }
+
+    public boolean isJson(int index) {
+        return columnTypes[index] == ORACLE_JSON;
+    }
+
+    /**
+     * 依欄位名稱取得索引，不存在時回傳 -1
+     */
+    public int indexOf(String columnName) {
+        Integer index = indexByName.get(columnName);
+        return index != null ? index : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "RowSchema{" +
+                "columns=" + Arrays.toString(columnNames) +
+                '}';
+    }
+}
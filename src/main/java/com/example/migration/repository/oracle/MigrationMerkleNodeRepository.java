@@ -0,0 +1,18 @@
+package com.example.migration.repository.oracle;
+
+import com.example.migration.model.entity.MigrationMerkleNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface MigrationMerkleNodeRepository extends JpaRepository<MigrationMerkleNode, Long> {
+    List<MigrationMerkleNode> findByJobNameAndNodeLevelOrderByNodePositionAsc(String jobName, Integer nodeLevel);
+
+    Optional<MigrationMerkleNode> findByJobNameAndNodeLevelAndNodePosition(String jobName, Integer nodeLevel,
+                                                                          Integer nodePosition);
+
+    void deleteByJobName(String jobName);
+
+    void deleteByJobNameAndNodeLevelGreaterThan(String jobName, Integer nodeLevel);
+}
@@ -0,0 +1,7 @@
+package com.example.migration.repository.oracle;
+
+import com.example.migration.model.entity.MigrationWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MigrationWatermarkRepository extends JpaRepository<MigrationWatermark, String> {
+}
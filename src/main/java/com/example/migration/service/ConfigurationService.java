@@ -4,6 +4,7 @@ import com.example.migration.model.dto.JobConfigDTO;
 import com.example.migration.exception.custom.ConfigurationException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,10 +38,17 @@ public class ConfigurationService {
     @Value("${migration.config.validation.enabled:true}")
     private boolean validationEnabled;
 
-    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    // YAML 配置使用 snake_case 鍵名 (例如 clob_columns、partition_mode)
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory())
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
     private final Map<String, JobConfigDTO> jobConfigs = new ConcurrentHashMap<>();
     private final Map<String, Long> configLastModified = new ConcurrentHashMap<>();
 
+    private static final Set<String> VALID_PARTITION_MODES = Set.of("none", "key_range", "ntile", "rowid");
+    private static final Set<String> VALID_JSON_MODES = Set.of("text", "stream", "oson");
+    private static final Set<String> VALID_READ_MODES = Set.of("cursor", "keyset");
+    private static final Set<String> VALID_WRITE_MODES = Set.of("upsert", "initial_load");
+
     @PostConstruct
     public void init() {
         logger.info("Initializing ConfigurationService");
@@ -214,6 +222,19 @@ public class ConfigurationService {
             validateTargetConfig(jobConfig.getTarget(), errors);
         }
         
+        // 全量重載會以暫存集合取代目標集合，不能只寫入部分資料
+        if (jobConfig.getSource() != null && jobConfig.getSource().getOracle() != null
+                && jobConfig.getTarget() != null && jobConfig.getTarget().getMongodb() != null
+                && jobConfig.getTarget().getMongodb().isChangeCollection()) {
+            JobConfigDTO.OracleConfig oracle = jobConfig.getSource().getOracle();
+            if (oracle.getWatermarkColumn() != null && !oracle.getWatermarkColumn().isEmpty()) {
+                errors.add("change_collection cannot be combined with watermark_column");
+            }
+            if (oracle.isChangeDetection()) {
+                errors.add("change_collection cannot be combined with change_detection");
+            }
+        }
+        
         // 排程配置驗證
         if (jobConfig.getSchedule() != null) {
             validateScheduleConfig(jobConfig.getSchedule(), errors);
@@ -305,6 +326,12 @@ public class ConfigurationService {
 				JobConfigDTO.ArchiveConfig archive = new JobConfigDTO.ArchiveConfig();
 				archive.setTargetTable(archiveNode.get("target_table").asText());
 				archive.setEnabled(archiveNode.get("enabled").asBoolean());
+				if (archiveNode.has("batch_size")) {
+					archive.setBatchSize(archiveNode.get("batch_size").asInt());
+				}
+				if (archiveNode.has("direct_path")) {
+					archive.setDirectPath(archiveNode.get("direct_path").asBoolean());
+				}
                 jobConfig.setArchive(archive);
             }
             
@@ -389,6 +416,29 @@ public class ConfigurationService {
         if (keyColumns == null || keyColumns.isEmpty()) {
             errors.add("At least one key column is required");
         }
+
+        String partitionMode = oracle.getPartitionMode();
+        if (partitionMode != null && !VALID_PARTITION_MODES.contains(partitionMode)) {
+            errors.add("Invalid partition mode: " + partitionMode);
+        }
+
+        if (oracle.getGridSize() != null && oracle.getGridSize() <= 0) {
+            errors.add("Grid size must be greater than 0");
+        }
+
+        String jsonMode = oracle.getJsonMode();
+        if (jsonMode != null && !VALID_JSON_MODES.contains(jsonMode)) {
+            errors.add("Invalid JSON mode: " + jsonMode);
+        }
+
+        String readMode = oracle.getReadMode();
+        if (readMode != null && !VALID_READ_MODES.contains(readMode)) {
+            errors.add("Invalid read mode: " + readMode);
+        }
+
+        if (oracle.getPageSize() != null && oracle.getPageSize() <= 0) {
+            errors.add("Page size must be greater than 0");
+        }
     }
 
     /**
@@ -408,6 +458,11 @@ public class ConfigurationService {
         if (mongodb.getCollection() == null || mongodb.getCollection().toString().trim().isEmpty()) {
             errors.add("MongoDB collection is required");
         }
+
+        String writeMode = mongodb.getWriteMode();
+        if (writeMode != null && !VALID_WRITE_MODES.contains(writeMode)) {
+            errors.add("Invalid write mode: " + writeMode);
+        }
     }
 
     /**
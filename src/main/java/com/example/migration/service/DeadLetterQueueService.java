@@ -0,0 +1,189 @@
+package com.example.migration.service;
+
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOptions;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Dead letter 服務
+ * 遷移時被 skip 的資料列記錄在 MongoDB 集合 (batch.dead-letter.collection)，
+ * 以「配置名稱:文檔 ID」為 _id，同一筆資料再次失敗時只更新原因並累計次數；
+ * 重試作業只讀取 PENDING 的記錄，寫入成功後標記為 RESOLVED。
+ * 記錄寫入 MongoDB 而非 Oracle，不受 skip 發生時 chunk 交易回復的影響
+ */
+@Service
+public class DeadLetterQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterQueueService.class);
+
+    /** 等待重試 */
+    public static final String STATUS_PENDING = "PENDING";
+
+    /** 重試成功 */
+    public static final String STATUS_RESOLVED = "RESOLVED";
+
+    /** 重試時來源資料列已不存在 */
+    public static final String STATUS_SOURCE_MISSING = "SOURCE_MISSING";
+
+    /** 讀取失敗，沒有主鍵可重試 */
+    public static final String STATUS_UNRETRYABLE = "UNRETRYABLE";
+
+    /** 堆疊追蹤保存的最大長度 */
+    private static final int MAX_STACK_TRACE_LENGTH = 4000;
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    @Value("${batch.dead-letter.collection:migration_dead_letter}")
+    private String collectionName;
+
+    @PostConstruct
+    public void init() {
+        // 重試作業依配置名稱與狀態依 _id 順序讀取
+        mongoTemplate.getCollection(collectionName).createIndex(
+                Indexes.ascending("jobName", "status", "_id"), new IndexOptions().name("jobName_status"));
+    }
+
+    /**
+     * 記錄被 skip 的資料列
+     *
+     * @param keyValues 主鍵值 (依 key_columns 順序)，讀取失敗時為 null
+     */
+    public void record(String jobName, String sourceTable, String documentId, Object[] keyValues,
+                       String phase, Throwable cause, Long jobExecutionId) {
+        Date now = new Date();
+        Document set = new Document("jobName", jobName)
+                .append("sourceTable", sourceTable)
+                .append("documentId", documentId)
+                .append("phase", phase)
+                .append("status", keyValues != null ? STATUS_PENDING : STATUS_UNRETRYABLE)
+                .append("reason", cause.getMessage())
+                .append("exceptionClass", cause.getClass().getName())
+                .append("stackTrace", stackTrace(cause))
+                .append("jobExecutionId", jobExecutionId)
+                .append("lastFailedTime", now);
+        if (keyValues != null) {
+            set.append("keyValues", toBson(keyValues));
+        }
+
+        if (documentId == null) {
+            // 沒有主鍵時無法合併，每次失敗各自保存
+            mongoTemplate.getCollection(collectionName).insertOne(set.append("attempts", 1)
+                    .append("firstFailedTime", now));
+        } else {
+            mongoTemplate.getCollection(collectionName).updateOne(
+                    new Document("_id", jobName + ":" + documentId),
+                    new Document("$set", set)
+                            .append("$inc", new Document("attempts", 1))
+                            .append("$setOnInsert", new Document("firstFailedTime", now)),
+                    new UpdateOptions().upsert(true));
+        }
+
+        logger.warn("Dead letter recorded for job {}, document {} ({}): {}", jobName, documentId, phase,
+                cause.getMessage());
+    }
+
+    /**
+     * 依 _id 順序讀取 afterId 之後的 PENDING 記錄
+     */
+    public List<Document> findPending(String jobName, String afterId, int limit) {
+        Document filter = new Document("jobName", jobName).append("status", STATUS_PENDING);
+        if (afterId != null) {
+            filter.append("_id", new Document("$gt", afterId));
+        }
+
+        return mongoTemplate.getCollection(collectionName)
+                .find(filter)
+                .projection(new Document("documentId", 1).append("keyValues", 1))
+                .sort(new Document("_id", 1))
+                .limit(limit)
+                .into(new ArrayList<>());
+    }
+
+    public long countPending(String jobName) {
+        return mongoTemplate.getCollection(collectionName)
+                .countDocuments(new Document("jobName", jobName).append("status", STATUS_PENDING));
+    }
+
+    /**
+     * 以單一 updateMany 更新多筆記錄的狀態
+     */
+    public void updateStatus(String jobName, Collection<String> documentIds, String status) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+
+        List<String> ids = new ArrayList<>(documentIds.size());
+        for (String documentId : documentIds) {
+            ids.add(jobName + ":" + documentId);
+        }
+        mongoTemplate.getCollection(collectionName).updateMany(
+                new Document("_id", new Document("$in", ids)).append("status", STATUS_PENDING),
+                new Document("$set", new Document("status", status).append("resolvedTime", new Date())));
+    }
+
+    /**
+     * 將記錄中的主鍵值轉回 JDBC 綁定型態
+     */
+    public static Object[] keyValues(Document deadLetter) {
+        List<?> values = deadLetter.getList("keyValues", Object.class);
+        Object[] keyValues = new Object[values.size()];
+        for (int i = 0; i < keyValues.length; i++) {
+            Object value = values.get(i);
+            if (value instanceof Decimal128) {
+                keyValues[i] = ((Decimal128) value).bigDecimalValue();
+            } else if (value instanceof Date) {
+                keyValues[i] = new Timestamp(((Date) value).getTime());
+            } else {
+                keyValues[i] = value;
+            }
+        }
+        return keyValues;
+    }
+
+    /**
+     * 數值以 Decimal128、時間以 Date 保存，其餘型態以字串保存
+     */
+    private List<Object> toBson(Object[] keyValues) {
+        List<Object> values = new ArrayList<>(keyValues.length);
+        for (Object value : keyValues) {
+            if (value == null) {
+                values.add(null);
+            } else if (value instanceof Number) {
+                values.add(new Decimal128(new BigDecimal(value.toString())));
+            } else if (value instanceof Date) {
+                values.add(new Date(((Date) value).getTime()));
+            } else {
+                values.add(value.toString());
+            }
+        }
+        return values;
+    }
+
+    private String stackTrace(Throwable cause) {
+        StringWriter writer = new StringWriter();
+        cause.printStackTrace(new PrintWriter(writer));
+        String trace = writer.toString();
+        return trace.length() > MAX_STACK_TRACE_LENGTH ? trace.substring(0, MAX_STACK_TRACE_LENGTH) : trace;
+    }
+}
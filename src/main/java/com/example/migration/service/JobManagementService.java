@@ -4,6 +4,7 @@ import com.example.migration.model.dto.JobConfigDTO;
 import com.example.migration.model.dto.JobExecutionDTO;
 import com.example.migration.model.entity.JobExecutionHistory;
 import com.example.migration.repository.oracle.JobExecutionHistoryRepository;
+import com.example.migration.config.JobRegistryConfig;
 import com.example.migration.exception.custom.MigrationException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
@@ -11,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.*;
 import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.NoSuchJobException;
 import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
@@ -44,6 +46,12 @@ public class JobManagementService {
     @Autowired
     private JobRegistry jobRegistry;
 
+    @Autowired
+    private JobRegistryConfig jobRegistryConfig;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
     @Autowired
     private JobExecutionHistoryRepository jobExecutionHistoryRepository;
 
@@ -72,6 +80,9 @@ public class JobManagementService {
             // 驗證Job配置
             validateJobConfig(jobConfig);
 
+            // 執行期間新增的配置尚未註冊作業；已註冊時只檢查固定於註冊時的設定是否變更
+            jobRegistryConfig.registerMigrationJob(jobName);
+
             // 從註冊表獲取Job
             Job job = jobRegistry.getJob(jobName);
             
@@ -224,9 +235,19 @@ public class JobManagementService {
                 throw new MigrationException("Only failed jobs can be restarted. Current status: " + history.getStatus());
             }
             
-            // 重新啟動作業
-            Map<String, Object> originalParameters = parseJobParameters(history.getJobParameters());
-            return startJob(history.getJobName(), originalParameters);
+            // 以原始參數重新執行同一個 JobInstance，各 step 由上次提交的位置繼續
+            JobExecution failedExecution = jobExplorer.getJobExecution(executionId);
+            if (failedExecution == null) {
+                Map<String, Object> originalParameters = parseJobParameters(history.getJobParameters());
+                return startJob(history.getJobName(), originalParameters);
+            }
+            
+            Job job = jobRegistry.getJob(failedExecution.getJobInstance().getJobName());
+            JobExecution jobExecution = jobLauncher.run(job, failedExecution.getJobParameters());
+            saveJobExecutionHistory(jobExecution, configurationService.getJobConfig(history.getJobName()));
+            
+            logger.info("Job execution {} restarted with execution id: {}", executionId, jobExecution.getId());
+            return CompletableFuture.completedFuture(convertToJobExecutionDTO(jobExecution));
             
         } catch (Exception e) {
             logger.error("Error restarting job execution: {}", executionId, e);
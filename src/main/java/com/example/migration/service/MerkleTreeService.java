@@ -0,0 +1,289 @@
+package com.example.migration.service;
+
+import com.example.migration.batch.partition.OracleSourcePartitioner;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.reader.OracleSourceQuery;
+import com.example.migration.exception.custom.MigrationException;
+import com.example.migration.model.entity.MigrationMerkleNode;
+import com.example.migration.repository.oracle.MigrationMerkleNodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 驗證 Merkle 樹服務
+ * 每個遷移配置保存一棵以主鍵範圍為葉節點的 Merkle 樹，葉節點記錄兩端的範圍雜湊值 (筆數 + 聚合雜湊)。
+ * 增量遷移完成後只將寫入過的範圍標記為待驗證，下次驗證只重新計算這些範圍，
+ * 未重新計算的範圍沿用上次保存的雜湊值，不需再查詢 Oracle 或 MongoDB。
+ * 節省的是葉節點範圍的查詢；上層節點不保存，只保存根節點記錄整個資料表的驗證結果
+ */
+@Service
+public class MerkleTreeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MerkleTreeService.class);
+
+    /** 葉節點層級 */
+    public static final int LEAF_LEVEL = 0;
+
+    private static final String PARTITION_NAME_PREFIX = "partition";
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    private MigrationMerkleNodeRepository nodeRepository;
+
+    /**
+     * 是否已有同一來源資料表的 Merkle 樹，來源資料表變更時視為沒有
+     */
+    public boolean hasTree(String jobName, String sourceTable) {
+        List<MigrationMerkleNode> leaves = leaves(jobName);
+        return !leaves.isEmpty() && leaves.get(0).getSourceTable().equalsIgnoreCase(sourceTable);
+    }
+
+    /**
+     * 以新的範圍切分重建 Merkle 樹，所有葉節點標記為待驗證
+     *
+     * @param ranges OracleSourcePartitioner 切分的主鍵範圍
+     */
+    @Transactional
+    public void reset(String jobName, String sourceTable, Iterable<ExecutionContext> ranges) {
+        nodeRepository.deleteByJobName(jobName);
+        nodeRepository.flush();
+
+        List<MigrationMerkleNode> leaves = new ArrayList<>();
+        for (ExecutionContext range : ranges) {
+            MigrationMerkleNode leaf = new MigrationMerkleNode(jobName, sourceTable, LEAF_LEVEL,
+                    range.getInt(OracleSourcePartitioner.PARTITION_INDEX_KEY));
+            Object lower = range.get(OracleSourcePartitioner.LOWER_BOUND_KEY);
+            Object upper = range.get(OracleSourcePartitioner.UPPER_BOUND_KEY);
+
+            if (lower != null) {
+                leaf.setLowerBound(WatermarkService.toText(lower));
+                leaf.setBoundType(WatermarkService.typeOf(lower));
+            }
+            if (upper != null) {
+                leaf.setUpperBound(WatermarkService.toText(upper));
+                leaf.setBoundType(WatermarkService.typeOf(upper));
+            }
+            leaf.setDirty(true);
+            leaf.setUpdatedTime(LocalDateTime.now());
+            leaves.add(leaf);
+        }
+        nodeRepository.saveAll(leaves);
+
+        logger.info("Merkle tree of job {} reset with {} ranges of {}", jobName, leaves.size(), sourceTable);
+    }
+
+    /**
+     * 待驗證的葉節點範圍，格式與 OracleSourcePartitioner 的分區相同
+     */
+    public Map<String, ExecutionContext> dirtyRanges(String jobName) {
+        Map<String, ExecutionContext> ranges = new HashMap<>();
+        for (MigrationMerkleNode leaf : leaves(jobName)) {
+            if (!leaf.getDirty()) {
+                continue;
+            }
+
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(OracleSourcePartitioner.PARTITION_INDEX_KEY, leaf.getNodePosition());
+            if (leaf.getLowerBound() != null) {
+                context.put(OracleSourcePartitioner.LOWER_BOUND_KEY,
+                        WatermarkService.fromText(leaf.getLowerBound(), leaf.getBoundType()));
+            }
+            if (leaf.getUpperBound() != null) {
+                context.put(OracleSourcePartitioner.UPPER_BOUND_KEY,
+                        WatermarkService.fromText(leaf.getUpperBound(), leaf.getBoundType()));
+            }
+            ranges.put(PARTITION_NAME_PREFIX + leaf.getNodePosition(), context);
+        }
+        return ranges;
+    }
+
+    /**
+     * 保存葉節點的驗證結果並清除待驗證標記
+     */
+    @Transactional
+    public void recordLeaf(String jobName, int position, long oracleCount, long oracleChecksum,
+                           long mongoCount, long mongoChecksum, Long jobExecutionId) {
+        MigrationMerkleNode leaf = nodeRepository
+                .findByJobNameAndNodeLevelAndNodePosition(jobName, LEAF_LEVEL, position)
+                .orElseThrow(() -> new MigrationException(
+                        "Merkle tree of job " + jobName + " has no range " + position));
+
+        leaf.setRowCount(oracleCount);
+        leaf.setOracleHash(hash(oracleCount + ":" + oracleChecksum));
+        leaf.setMongoHash(hash(mongoCount + ":" + mongoChecksum));
+        leaf.setDirty(false);
+        leaf.setJobExecutionId(jobExecutionId);
+        leaf.setUpdatedTime(LocalDateTime.now());
+        nodeRepository.save(leaf);
+    }
+
+    /**
+     * 遷移完成後將寫入過的範圍標記為待驗證
+     * 增量遷移以 CASE 在 Oracle 端將本次增量範圍內的主鍵對應到葉節點，只傳回被寫入的葉節點序號；
+     * 全量遷移、首次增量或依雜湊值比對變更時無法得知寫入範圍，全部標記。
+     * 來源資料列被刪除時水位不會變動，需定期以 fullValidation=true 執行完整驗證
+     */
+    @Transactional
+    public void markTouched(MigrationPlan plan) {
+        List<MigrationMerkleNode> leaves = leaves(plan.getJobName());
+        if (leaves.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> touched = new HashSet<>();
+        if (!plan.isIncremental() || plan.getWatermarkLow() == null || plan.isStagedReload()) {
+            for (MigrationMerkleNode leaf : leaves) {
+                touched.add(leaf.getNodePosition());
+            }
+        } else {
+            touched.addAll(touchedPositions(plan, leaves));
+        }
+
+        for (MigrationMerkleNode leaf : leaves) {
+            if (touched.contains(leaf.getNodePosition()) && !leaf.getDirty()) {
+                leaf.setDirty(true);
+                leaf.setUpdatedTime(LocalDateTime.now());
+            }
+        }
+        nodeRepository.saveAll(leaves);
+
+        logger.info("Job {} touched {} of {} validation ranges", plan.getJobName(), touched.size(), leaves.size());
+    }
+
+    private List<Integer> touchedPositions(MigrationPlan plan, List<MigrationMerkleNode> leaves) {
+        List<Object> arguments = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT DISTINCT CASE");
+        for (MigrationMerkleNode leaf : leaves) {
+            if (leaf.getUpperBound() == null) {
+                continue;
+            }
+            sql.append(" WHEN ").append(plan.getLeadingKeyColumn()).append(" < ? THEN ")
+                    .append(leaf.getNodePosition());
+            arguments.add(WatermarkService.fromText(leaf.getUpperBound(), leaf.getBoundType()));
+        }
+        sql.append(" ELSE ").append(leaves.get(leaves.size() - 1).getNodePosition())
+                .append(" END AS LEAF FROM ").append(plan.getSourceTable());
+        OracleSourceQuery.appendWhere(sql, OracleSourceQuery.conditions(plan, new ExecutionContext(), arguments));
+
+        return new JdbcTemplate(dataSource).queryForList(sql.toString(), Integer.class, arguments.toArray());
+    }
+
+    /**
+     * 由葉節點計算兩端根節點並比對，回傳不一致 (或尚未驗證) 的葉節點
+     * 上層節點只在記憶體中逐層合併，資料表中只保存根節點作為整個資料表的驗證結果
+     */
+    @Transactional
+    public List<MigrationMerkleNode> rebuild(String jobName, Long jobExecutionId) {
+        List<MigrationMerkleNode> leaves = leaves(jobName);
+        if (leaves.isEmpty()) {
+            return leaves;
+        }
+
+        List<String> oracleHashes = new ArrayList<>();
+        List<String> mongoHashes = new ArrayList<>();
+        Long rowCount = 0L;
+        boolean dirty = false;
+        List<MigrationMerkleNode> divergent = new ArrayList<>();
+        for (MigrationMerkleNode leaf : leaves) {
+            oracleHashes.add(leaf.getOracleHash());
+            mongoHashes.add(leaf.getMongoHash());
+            rowCount = sum(rowCount, leaf.getRowCount());
+            dirty |= leaf.getDirty();
+            if (!matches(leaf)) {
+                divergent.add(leaf);
+            }
+        }
+
+        int rootLevel = LEAF_LEVEL;
+        while (oracleHashes.size() > 1) {
+            oracleHashes = parentLevel(oracleHashes);
+            mongoHashes = parentLevel(mongoHashes);
+            rootLevel++;
+        }
+
+        nodeRepository.deleteByJobNameAndNodeLevelGreaterThan(jobName, LEAF_LEVEL);
+        nodeRepository.flush();
+
+        MigrationMerkleNode root = leaves.get(0);
+        if (rootLevel > LEAF_LEVEL) {
+            root = new MigrationMerkleNode(jobName, leaves.get(0).getSourceTable(), rootLevel, 0);
+            root.setOracleHash(oracleHashes.get(0));
+            root.setMongoHash(mongoHashes.get(0));
+            root.setRowCount(rowCount);
+            root.setDirty(dirty);
+            root.setJobExecutionId(jobExecutionId);
+            root.setUpdatedTime(LocalDateTime.now());
+            nodeRepository.save(root);
+        }
+
+        if (!matches(root)) {
+            logger.warn("Merkle roots of job {} differ: {} of {} ranges diverge",
+                    jobName, divergent.size(), leaves.size());
+        } else {
+            logger.info("Merkle roots of job {} match: {} ranges, {} rows", jobName, leaves.size(),
+                    root.getRowCount());
+        }
+        return divergent;
+    }
+
+    private List<String> parentLevel(List<String> hashes) {
+        List<String> parents = new ArrayList<>();
+        for (int i = 0; i < hashes.size(); i += 2) {
+            parents.add(combine(hashes.get(i), i + 1 < hashes.size() ? hashes.get(i + 1) : ""));
+        }
+        return parents;
+    }
+
+    private List<MigrationMerkleNode> leaves(String jobName) {
+        return nodeRepository.findByJobNameAndNodeLevelOrderByNodePositionAsc(jobName, LEAF_LEVEL);
+    }
+
+    /**
+     * 尚未驗證的節點沒有雜湊值，視為不一致
+     */
+    private boolean matches(MigrationMerkleNode node) {
+        return node.getOracleHash() != null && node.getOracleHash().equals(node.getMongoHash());
+    }
+
+    private String combine(String left, String right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        return hash(left + right);
+    }
+
+    private Long sum(Long left, Long right) {
+        return left != null && right != null ? left + right : null;
+    }
+
+    private String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new MigrationException("SHA-256 not available", e);
+        }
+    }
+}
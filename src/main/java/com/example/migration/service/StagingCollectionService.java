@@ -0,0 +1,95 @@
+package com.example.migration.service;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.RenameCollectionOptions;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 全量重載暫存集合服務
+ * 作業開始時建立空的暫存集合 (只有 _id 索引)，遷移期間以 insert 寫入；
+ * 全部分區完成後依目標集合現有的索引定義一次建立索引，
+ * 再以 renameCollection(dropTarget=true) 置換目標集合，讀取端不會看到寫入一半的資料
+ */
+@Service
+public class StagingCollectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagingCollectionService.class);
+
+    /** 預設的 _id 索引名稱 */
+    private static final String ID_INDEX_NAME = "_id_";
+
+    @Autowired
+    @Qualifier("batchMongoTemplate")
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * 重建空的暫存集合，清除先前失敗執行留下的資料
+     */
+    public void prepare(MigrationPlan plan) {
+        String staging = plan.getStagingCollection();
+
+        if (mongoTemplate.collectionExists(staging)) {
+            logger.info("Dropping leftover staging collection {}", staging);
+            mongoTemplate.dropCollection(staging);
+        }
+        mongoTemplate.createCollection(staging);
+
+        logger.info("Staging collection {} created for {}", staging, plan.getCollection());
+    }
+
+    /**
+     * 在暫存集合建立目標集合的索引，並以暫存集合取代目標集合
+     */
+    public void swap(MigrationPlan plan) {
+        String staging = plan.getStagingCollection();
+        String target = plan.getCollection();
+        MongoDatabase database = mongoTemplate.getDb();
+
+        List<Document> indexes = secondaryIndexes(database, target);
+        if (!indexes.isEmpty()) {
+            logger.info("Building {} indexes on staging collection {}", indexes.size(), staging);
+            database.runCommand(new Document("createIndexes", staging).append("indexes", indexes));
+        }
+
+        database.getCollection(staging).renameCollection(
+                new MongoNamespace(database.getName(), target),
+                new RenameCollectionOptions().dropTarget(true));
+
+        logger.info("Staging collection {} renamed to {}", staging, target);
+    }
+
+    /**
+     * 目標集合除 _id 以外的索引定義，目標集合不存在時回傳空清單
+     */
+    private List<Document> secondaryIndexes(MongoDatabase database, String collectionName) {
+        List<Document> indexes = new ArrayList<>();
+        if (!mongoTemplate.collectionExists(collectionName)) {
+            return indexes;
+        }
+
+        MongoCollection<Document> collection = database.getCollection(collectionName);
+        for (Document index : collection.listIndexes()) {
+            if (ID_INDEX_NAME.equals(index.getString("name"))) {
+                continue;
+            }
+            // 版本與命名空間由伺服器決定，其餘選項 (unique、partialFilterExpression 等) 原樣沿用
+            Document spec = new Document(index);
+            spec.remove("v");
+            spec.remove("ns");
+            indexes.add(spec);
+        }
+        return indexes;
+    }
+}
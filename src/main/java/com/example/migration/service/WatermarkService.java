@@ -0,0 +1,151 @@
+package com.example.migration.service;
+
+import com.example.migration.model.dto.JobConfigDTO;
+import com.example.migration.model.entity.MigrationWatermark;
+import com.example.migration.repository.oracle.MigrationWatermarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 增量遷移水位服務
+ * 查詢來源資料表目前的高水位，並在作業成功後保存，作為下次增量讀取的起點
+ */
+@Service
+public class WatermarkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatermarkService.class);
+
+    /** 以 Oracle 列的提交 SCN 作為水位 */
+    public static final String ORA_ROWSCN = "ORA_ROWSCN";
+
+    @Autowired
+    @Qualifier("oracleDataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    private MigrationWatermarkRepository watermarkRepository;
+
+    /**
+     * 取得上次成功執行保存的水位，尚未執行過時回傳 null
+     * 水位欄位變更時視為尚未執行過，重新全量讀取
+     */
+    public Object getWatermark(String jobName, String watermarkColumn) {
+        Optional<MigrationWatermark> watermark = watermarkRepository.findById(jobName);
+        if (!watermark.isPresent()) {
+            return null;
+        }
+
+        if (!watermark.get().getWatermarkColumn().equalsIgnoreCase(watermarkColumn)) {
+            logger.warn("Watermark column of job {} changed from {} to {}, reading all rows",
+                    jobName, watermark.get().getWatermarkColumn(), watermarkColumn);
+            return null;
+        }
+
+        return fromText(watermark.get().getWatermarkValue(), watermark.get().getValueType());
+    }
+
+    /**
+     * 查詢來源目前的高水位
+     * ORA_ROWSCN 使用資料庫目前的 SCN，之後才提交的資料 SCN 必定較大，會由下次執行讀取；
+     * 一般欄位使用 MAX 值，欄位值需在提交時單調遞增，且為 NULL 的資料列不會被增量讀取；
+     * 快照讀取時 MAX 需與讀取端相同以 AS OF SCN 查詢，否則快照之後才提交的資料會落在水位內卻讀不到
+     */
+    public Object currentHighWatermark(JobConfigDTO.OracleConfig source, Long snapshotScn) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String watermarkColumn = source.getWatermarkColumn();
+
+        if (ORA_ROWSCN.equalsIgnoreCase(watermarkColumn)) {
+            return jdbcTemplate.queryForObject(
+                    "SELECT DBMS_FLASHBACK.GET_SYSTEM_CHANGE_NUMBER FROM DUAL", BigDecimal.class);
+        }
+
+        String sql = "SELECT MAX(" + watermarkColumn + ") FROM " + source.getOwner() + "." + source.getTable();
+        if (snapshotScn != null) {
+            sql += " AS OF SCN " + snapshotScn;
+        }
+        if (source.getWhereCondition() != null && !source.getWhereCondition().isEmpty()) {
+            sql += " WHERE " + source.getWhereCondition();
+        }
+
+        return jdbcTemplate.query(sql, rs -> rs.next() ? readValue(rs) : null);
+    }
+
+    /**
+     * 作業成功後推進水位
+     */
+    @Transactional
+    public void advance(String jobName, String watermarkColumn, Object highWatermark, Long jobExecutionId) {
+        MigrationWatermark watermark = watermarkRepository.findById(jobName)
+                .orElseGet(() -> new MigrationWatermark(jobName, watermarkColumn));
+
+        watermark.setWatermarkColumn(watermarkColumn);
+        watermark.setWatermarkValue(toText(highWatermark));
+        watermark.setValueType(typeOf(highWatermark));
+        watermark.setJobExecutionId(jobExecutionId);
+        watermark.setUpdatedTime(LocalDateTime.now());
+
+        watermarkRepository.save(watermark);
+        logger.info("Watermark of job {} advanced to {}", jobName, watermark.getWatermarkValue());
+    }
+
+    /**
+     * 依欄位型態讀取，避免取得驅動程式專屬型態 (例如 oracle.sql.TIMESTAMP)
+     */
+    private Object readValue(ResultSet rs) throws SQLException {
+        switch (rs.getMetaData().getColumnType(1)) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return rs.getBigDecimal(1);
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return rs.getTimestamp(1);
+            default:
+                return rs.getString(1);
+        }
+    }
+
+    static String typeOf(Object value) {
+        if (value instanceof Number) {
+            return "NUMBER";
+        }
+        if (value instanceof Timestamp) {
+            return "TIMESTAMP";
+        }
+        return "STRING";
+    }
+
+    static String toText(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    static Object fromText(String value, String type) {
+        switch (type) {
+            case "NUMBER":
+                return new BigDecimal(value);
+            case "TIMESTAMP":
+                return Timestamp.valueOf(value);
+            default:
+                return value;
+        }
+    }
+}
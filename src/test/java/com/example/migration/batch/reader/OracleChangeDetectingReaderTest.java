@@ -0,0 +1,178 @@
+package com.example.migration.batch.reader;
+
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.writer.MongoDocumentWriter;
+import com.example.migration.model.document.MigrationDocument;
+import com.example.migration.model.dto.JobConfigDTO;
+import com.example.migration.model.row.OracleRow;
+import com.example.migration.model.row.RowSchema;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 變更偵測讀取器測試
+ * 以 upsert 寫入器寫入文檔後執行變更偵測，雜湊值相同的資料列不應再查詢完整內容
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OracleChangeDetectingReaderTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient mongoClient;
+
+    private static MongoTemplate mongoTemplate;
+
+    private MigrationPlan migrationPlan;
+
+    @BeforeAll
+    static void createTemplate() {
+        mongoClient = MongoClients.create(MONGO.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "migration_test");
+
+        // 與 batchMongoTemplate 相同，不寫入 _class 欄位
+        MappingMongoConverter converter = (MappingMongoConverter) mongoTemplate.getConverter();
+        converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    }
+
+    @AfterAll
+    static void closeClient() {
+        mongoClient.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        migrationPlan = MigrationPlan.from("customerJob", jobConfig());
+        mongoTemplate.dropCollection(migrationPlan.getCollection());
+    }
+
+    @Test
+    void skipsRowsWrittenByUpsertWithUnchangedHash() throws Exception {
+        MongoDocumentWriter writer = new MongoDocumentWriter();
+        ReflectionTestUtils.setField(writer, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(writer, "migrationPlan", migrationPlan);
+
+        writer.write(Chunk.of(document("1", "H1"), document("2", "H2"), document("3", "H3")));
+
+        // 重寫同一批文檔不應新增文檔
+        writer.write(Chunk.of(document("1", "H1"), document("2", "H2"), document("3", "H3")));
+        assertThat(mongoTemplate.getCollection(migrationPlan.getCollection()).countDocuments()).isEqualTo(3);
+
+        RowSchema keySchema = schema(new String[] {"ID", "SOURCE_HASH"}, new int[] {Types.NUMERIC, Types.VARCHAR});
+        JdbcCursorItemReader<OracleRow> keyReader = mockKeyReader(
+                new OracleRow(keySchema, new Object[] {new BigDecimal(1), "H1"}),
+                new OracleRow(keySchema, new Object[] {new BigDecimal(2), "H2-CHANGED"}),
+                new OracleRow(keySchema, new Object[] {new BigDecimal(3), "H3"}),
+                new OracleRow(keySchema, new Object[] {new BigDecimal(4), "H4"}));
+
+        RowSchema rowSchema = schema(new String[] {"ID", "PAYLOAD"}, new int[] {Types.NUMERIC, Types.CLOB});
+        OracleRowLookup rowLookup = mock(OracleRowLookup.class);
+        when(rowLookup.fetchByKeys(anyList())).thenAnswer(invocation -> {
+            List<OracleRow> rows = new ArrayList<>();
+            for (Object[] key : invocation.<List<Object[]>>getArgument(0)) {
+                rows.add(new OracleRow(rowSchema, new Object[] {key[0], "{}"}));
+            }
+            return rows;
+        });
+
+        OracleChangeDetectingReader reader = new OracleChangeDetectingReader();
+        ReflectionTestUtils.setField(reader, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(reader, "migrationPlan", migrationPlan);
+        ReflectionTestUtils.setField(reader, "keyReader", keyReader);
+        ReflectionTestUtils.setField(reader, "rowLookup", rowLookup);
+        ReflectionTestUtils.setField(reader, "batchSize", 10);
+
+        Map<String, String> changed = new HashMap<>();
+        OracleRow row;
+        while ((row = reader.read()) != null) {
+            changed.put(migrationPlan.documentId(row), row.getSourceHash());
+        }
+
+        assertThat(changed).containsOnly(Map.entry("2", "H2-CHANGED"), Map.entry("4", "H4"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> keys = ArgumentCaptor.forClass(List.class);
+        verify(rowLookup).fetchByKeys(keys.capture());
+        assertThat(keys.getValue()).extracting(key -> key[0].toString()).containsExactlyInAnyOrder("2", "4");
+    }
+
+    private static MigrationDocument document(String id, String sourceHash) {
+        MigrationDocument document = new MigrationDocument(id, "APP.CUSTOMER", Map.of("PAYLOAD", Map.of("id", id)));
+        document.setSourceHash(sourceHash);
+        return document;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JdbcCursorItemReader<OracleRow> mockKeyReader(OracleRow... rows) throws Exception {
+        JdbcCursorItemReader<OracleRow> keyReader = mock(JdbcCursorItemReader.class);
+        OracleRow[] remaining = new OracleRow[rows.length];
+        System.arraycopy(rows, 1, remaining, 0, rows.length - 1);
+        when(keyReader.read()).thenReturn(rows[0], remaining);
+        return keyReader;
+    }
+
+    private static RowSchema schema(String[] names, int[] types) throws SQLException {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(names.length);
+        for (int i = 0; i < names.length; i++) {
+            when(metaData.getColumnName(i + 1)).thenReturn(names[i]);
+            when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+        }
+        return RowSchema.from(metaData);
+    }
+
+    private static JobConfigDTO jobConfig() {
+        JobConfigDTO.OracleConfig oracle = new JobConfigDTO.OracleConfig();
+        oracle.setOwner("APP");
+        oracle.setTable("CUSTOMER");
+        oracle.setKeyColumns(List.of("ID"));
+        oracle.setClobColumns(List.of("PAYLOAD"));
+        oracle.setChangeDetection(true);
+
+        JobConfigDTO.SourceConfig source = new JobConfigDTO.SourceConfig();
+        source.setOracle(oracle);
+
+        JobConfigDTO.MongodbConfig mongodb = new JobConfigDTO.MongodbConfig();
+        mongodb.setDatabase("migration_test");
+        mongodb.setCollection("customer");
+
+        JobConfigDTO.TargetConfig target = new JobConfigDTO.TargetConfig();
+        target.setMongodb(mongodb);
+
+        JobConfigDTO config = new JobConfigDTO();
+        config.setName("customerJob");
+        config.setSource(source);
+        config.setTarget(target);
+        return config;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.migration.batch.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 複合主鍵 keyset 條件測試
+ * 綁定值的數量與順序必須與條件中的佔位符一致
+ */
+class OracleSourceQueryTest {
+
+    @Test
+    void singleKeyPredicate() {
+        assertThat(OracleSourceQuery.keysetPredicate(List.of("ID"))).isEqualTo("(ID > ?)");
+
+        List<Object> arguments = new ArrayList<>();
+        OracleSourceQuery.addKeysetArguments(arguments, new Object[] {42});
+        assertThat(arguments).containsExactly(42);
+    }
+
+    @Test
+    void compositeKeyPredicateExpandsRowComparison() {
+        String predicate = OracleSourceQuery.keysetPredicate(List.of("REGION", "CUSTOMER_ID", "SEQ"));
+
+        assertThat(predicate).isEqualTo("(REGION > ?"
+                + " OR (REGION = ? AND CUSTOMER_ID > ?)"
+                + " OR (REGION = ? AND CUSTOMER_ID = ? AND SEQ > ?))");
+    }
+
+    @Test
+    void compositeKeyArgumentsFollowPlaceholderOrder() {
+        List<Object> arguments = new ArrayList<>();
+        OracleSourceQuery.addKeysetArguments(arguments, new Object[] {"TW", 1001L, 7});
+
+        assertThat(arguments).containsExactly("TW", "TW", 1001L, "TW", 1001L, 7);
+    }
+
+    @Test
+    void argumentCountMatchesPlaceholders() {
+        List<String> keyColumns = List.of("A", "B", "C", "D");
+        String predicate = OracleSourceQuery.keysetPredicate(keyColumns);
+
+        List<Object> arguments = new ArrayList<>(List.of("base"));
+        OracleSourceQuery.addKeysetArguments(arguments, new Object[] {1, 2, 3, 4});
+
+        long placeholders = predicate.chars().filter(c -> c == '?').count();
+        // 既有的綁定值保留在前面，keyset 綁定值接在後面
+        assertThat(arguments).hasSize(1 + (int) placeholders);
+        assertThat(arguments.get(0)).isEqualTo("base");
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.migration.batch.support;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import org.bson.BsonDocument;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JSON 串流轉 BSON 測試
+ * 整數依大小對應 int32 / int64 / decimal128，非整數為 double
+ */
+class JsonBsonTranscoderTest {
+
+    private final JsonBsonTranscoder transcoder = new JsonBsonTranscoder(new JsonFactory());
+
+    @Test
+    void mapsIntegersBySize() throws IOException {
+        BsonDocument document = transcode("{\"int\": 2147483647, \"negative\": -2147483648, "
+                + "\"long\": 2147483648, \"maxLong\": 9223372036854775807, "
+                + "\"big\": 9223372036854775808}");
+
+        assertThat(document.get("int").getBsonType()).isEqualTo(BsonType.INT32);
+        assertThat(document.getInt32("int").getValue()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(document.get("negative").getBsonType()).isEqualTo(BsonType.INT32);
+
+        assertThat(document.get("long").getBsonType()).isEqualTo(BsonType.INT64);
+        assertThat(document.getInt64("long").getValue()).isEqualTo(2147483648L);
+        assertThat(document.getInt64("maxLong").getValue()).isEqualTo(Long.MAX_VALUE);
+
+        assertThat(document.get("big").getBsonType()).isEqualTo(BsonType.DECIMAL128);
+        assertThat(document.getDecimal128("big").getValue())
+                .isEqualTo(new Decimal128(new BigDecimal("9223372036854775808")));
+    }
+
+    @Test
+    void mapsFractionsAndExponentsToDouble() throws IOException {
+        BsonDocument document = transcode("{\"fraction\": 1.5, \"exponent\": 1e3, \"zero\": 0.0}");
+
+        assertThat(document.get("fraction").getBsonType()).isEqualTo(BsonType.DOUBLE);
+        assertThat(document.getDouble("fraction").getValue()).isEqualTo(1.5);
+        assertThat(document.getDouble("exponent").getValue()).isEqualTo(1000.0);
+        assertThat(document.getDouble("zero").getValue()).isEqualTo(0.0);
+    }
+
+    @Test
+    void mapsNumbersInsideArrays() throws IOException {
+        BsonValue value = transcoder.transcode(new StringReader("[1, 5000000000, 2.25]"));
+
+        assertThat(value.isArray()).isTrue();
+        assertThat(value.asArray().get(0).getBsonType()).isEqualTo(BsonType.INT32);
+        assertThat(value.asArray().get(1).getBsonType()).isEqualTo(BsonType.INT64);
+        assertThat(value.asArray().get(2).getBsonType()).isEqualTo(BsonType.DOUBLE);
+    }
+
+    @Test
+    void rejectsContentAfterRootValue() {
+        assertThatThrownBy(() -> transcoder.transcode(new StringReader("{\"a\": 1} {\"b\": 2}")))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    private BsonDocument transcode(String json) throws IOException {
+        BsonValue value = transcoder.transcode(new StringReader(json));
+        assertThat(value.isDocument()).isTrue();
+        return value.asDocument();
+    }
+}
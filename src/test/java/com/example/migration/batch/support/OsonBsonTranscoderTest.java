@@ -0,0 +1,92 @@
+package com.example.migration.batch.support;
+
+import oracle.sql.json.OracleJsonFactory;
+import oracle.sql.json.OracleJsonGenerator;
+import oracle.sql.json.OracleJsonParser;
+import org.bson.BsonDocument;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * OSON 轉 BSON 測試
+ * 數值對應需與 {@link JsonBsonTranscoder} 一致：整數依大小為 int32 / int64 / decimal128，非整數為 double
+ */
+class OsonBsonTranscoderTest {
+
+    private final OracleJsonFactory jsonFactory = new OracleJsonFactory();
+
+    private final OsonBsonTranscoder transcoder = new OsonBsonTranscoder();
+
+    @Test
+    void mapsIntegralDecimalsBySize() {
+        BsonDocument document = transcode(generator -> {
+            generator.write("int", new BigDecimal("2147483647"));
+            generator.write("negative", new BigDecimal("-2147483648"));
+            generator.write("long", new BigDecimal("2147483648"));
+            generator.write("maxLong", new BigDecimal("9223372036854775807"));
+            generator.write("big", new BigDecimal("9223372036854775808"));
+        });
+
+        assertThat(document.get("int").getBsonType()).isEqualTo(BsonType.INT32);
+        assertThat(document.getInt32("int").getValue()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(document.get("negative").getBsonType()).isEqualTo(BsonType.INT32);
+
+        assertThat(document.get("long").getBsonType()).isEqualTo(BsonType.INT64);
+        assertThat(document.getInt64("long").getValue()).isEqualTo(2147483648L);
+        assertThat(document.getInt64("maxLong").getValue()).isEqualTo(Long.MAX_VALUE);
+
+        assertThat(document.get("big").getBsonType()).isEqualTo(BsonType.DECIMAL128);
+        assertThat(document.getDecimal128("big").getValue())
+                .isEqualTo(new Decimal128(new BigDecimal("9223372036854775808")));
+    }
+
+    @Test
+    void mapsDecimalsWithoutFractionToIntegers() {
+        BsonDocument document = transcode(generator -> {
+            generator.write("trailingZeros", new BigDecimal("10.00"));
+            generator.write("exponent", new BigDecimal("1E+3"));
+            generator.write("zero", new BigDecimal("0.000"));
+        });
+
+        assertThat(document.get("trailingZeros").getBsonType()).isEqualTo(BsonType.INT32);
+        assertThat(document.getInt32("trailingZeros").getValue()).isEqualTo(10);
+        assertThat(document.getInt32("exponent").getValue()).isEqualTo(1000);
+        assertThat(document.getInt32("zero").getValue()).isEqualTo(0);
+    }
+
+    @Test
+    void mapsFractionsAndBinaryDoublesToDouble() {
+        BsonDocument document = transcode(generator -> {
+            generator.write("fraction", new BigDecimal("1.5"));
+            generator.write("binaryDouble", 2.25d);
+        });
+
+        assertThat(document.get("fraction").getBsonType()).isEqualTo(BsonType.DOUBLE);
+        assertThat(document.getDouble("fraction").getValue()).isEqualTo(1.5);
+        assertThat(document.get("binaryDouble").getBsonType()).isEqualTo(BsonType.DOUBLE);
+        assertThat(document.getDouble("binaryDouble").getValue()).isEqualTo(2.25);
+    }
+
+    private BsonDocument transcode(Consumer<OracleJsonGenerator> fields) {
+        ByteArrayOutputStream oson = new ByteArrayOutputStream();
+        try (OracleJsonGenerator generator = jsonFactory.createJsonBinaryGenerator(oson)) {
+            generator.writeStartObject();
+            fields.accept(generator);
+            generator.writeEnd();
+        }
+
+        OracleJsonParser parser = jsonFactory.createJsonBinaryParser(ByteBuffer.wrap(oson.toByteArray()));
+        BsonValue value = transcoder.transcode(parser);
+        assertThat(value.isDocument()).isTrue();
+        return value.asDocument();
+    }
+}
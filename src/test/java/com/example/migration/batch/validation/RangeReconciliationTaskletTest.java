@@ -0,0 +1,204 @@
+package com.example.migration.batch.validation;
+
+import com.example.migration.batch.partition.OracleSourcePartitioner;
+import com.example.migration.batch.plan.MigrationPlan;
+import com.example.migration.batch.writer.MongoDocumentWriter;
+import com.example.migration.model.document.MigrationDocument;
+import com.example.migration.model.dto.JobConfigDTO;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 鍵值範圍比對測試
+ * MongoDB 端依 rangeKey 以數值順序選取範圍並使用索引，聚合雜湊值為 sourceHash 前 8 位十六進位的總和，
+ * 與 Oracle 端 TO_NUMBER(SUBSTR(H, 1, 8), 'XXXXXXXX') 的結果相同
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RangeReconciliationTaskletTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient mongoClient;
+
+    private static MongoTemplate mongoTemplate;
+
+    private MigrationPlan migrationPlan;
+
+    private RangeReconciliationTasklet tasklet;
+
+    @BeforeAll
+    static void createTemplate() {
+        mongoClient = MongoClients.create(MONGO.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "migration_test");
+
+        // 與 batchMongoTemplate 相同，不寫入 _class 欄位
+        MappingMongoConverter converter = (MappingMongoConverter) mongoTemplate.getConverter();
+        converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    }
+
+    @AfterAll
+    static void closeClient() {
+        mongoClient.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        migrationPlan = MigrationPlan.from("orderJob", jobConfig());
+        mongoTemplate.dropCollection(migrationPlan.getCollection());
+        mongoTemplate.getCollection(migrationPlan.getCollection()).createIndex(
+                Indexes.ascending(MigrationPlan.RANGE_KEY_FIELD),
+                new IndexOptions().name(MigrationPlan.RANGE_KEY_FIELD));
+
+        MongoDocumentWriter writer = new MongoDocumentWriter();
+        ReflectionTestUtils.setField(writer, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(writer, "migrationPlan", migrationPlan);
+
+        // 以字串比較時 "100" 會落在 "10" 與 "15" 之間
+        writer.write(Chunk.of(
+                document(5, "00000001AAAA"),
+                document(10, "FFFFFFFF0000"),
+                document(12, null),
+                document(15, "abcdef12ffff"),
+                document(19, "0000001000000"),
+                document(20, "12345678"),
+                document(100, "87654321")));
+
+        tasklet = new RangeReconciliationTasklet();
+        ReflectionTestUtils.setField(tasklet, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(tasklet, "migrationPlan", migrationPlan);
+    }
+
+    @Test
+    void summarisesNumericRangeWithHexPrefixChecksum() {
+        Document filter = tasklet.mongoRangeFilter(range(10L, 20L));
+
+        RangeReconciliationTasklet.RangeSummary summary = tasklet.mongoSummary(filter);
+
+        assertThat(summary.count).isEqualTo(4);
+        assertThat(summary.hashedCount).isEqualTo(3);
+        assertThat(summary.checksum).isEqualTo(
+                hexPrefix("FFFFFFFF0000") + hexPrefix("abcdef12ffff") + hexPrefix("0000001000000"));
+    }
+
+    @Test
+    void openRangesIncludeEverythingBeyondTheBound() {
+        ExecutionContext lastRange = new ExecutionContext();
+        lastRange.put(OracleSourcePartitioner.LOWER_BOUND_KEY, 20L);
+
+        RangeReconciliationTasklet.RangeSummary summary = tasklet.mongoSummary(tasklet.mongoRangeFilter(lastRange));
+
+        assertThat(summary.count).isEqualTo(2);
+        assertThat(summary.checksum).isEqualTo(hexPrefix("12345678") + hexPrefix("87654321"));
+    }
+
+    @Test
+    void unboundedRangeExcludesDocumentsWithoutRangeKey() {
+        mongoTemplate.getCollection(migrationPlan.getCollection()).insertOne(
+                new Document("_id", "999").append("sourceHash", "00000001"));
+
+        RangeReconciliationTasklet.RangeSummary summary =
+                tasklet.mongoSummary(tasklet.mongoRangeFilter(new ExecutionContext()));
+
+        assertThat(summary.count).isEqualTo(7);
+        assertThat(mongoTemplate.getCollection(migrationPlan.getCollection())
+                .countDocuments(RangeReconciliationTasklet.withoutRangeKeyFilter())).isEqualTo(1);
+    }
+
+    @Test
+    void rangeFilterUsesRangeKeyIndex() {
+        Document filter = tasklet.mongoRangeFilter(range(10L, 20L));
+
+        Document plan = mongoTemplate.getCollection(migrationPlan.getCollection()).find(filter).explain();
+
+        assertThat(plan.toJson()).contains("IXSCAN").contains(MigrationPlan.RANGE_KEY_FIELD);
+    }
+
+    @Test
+    void countsRangesComparedWithoutChecksum() {
+        StepExecution hashed = validatedRange("partition0", true, 10);
+        StepExecution countOnly = validatedRange("partition1", false, 10);
+        StepExecution empty = validatedRange("partition2", false, 0);
+
+        assertThat(RangeReconciliationTasklet.countOnlyRanges(List.of(hashed, countOnly, empty))).isEqualTo(1);
+    }
+
+    private static StepExecution validatedRange(String partition, boolean checksumCompared, long mongoCount) {
+        StepExecution stepExecution = new StepExecution("validationWorkerStep:" + partition, null);
+        stepExecution.getExecutionContext().putString(RangeReconciliationTasklet.CHECKSUM_COMPARED_KEY,
+                String.valueOf(checksumCompared));
+        stepExecution.getExecutionContext().putLong(RangeReconciliationTasklet.MONGO_COUNT_KEY, mongoCount);
+        return stepExecution;
+    }
+
+    private static ExecutionContext range(Object lower, Object upper) {
+        ExecutionContext context = new ExecutionContext();
+        context.put(OracleSourcePartitioner.LOWER_BOUND_KEY, lower);
+        context.put(OracleSourcePartitioner.UPPER_BOUND_KEY, upper);
+        return context;
+    }
+
+    /**
+     * 與 Oracle 端相同，取前 8 位十六進位轉為數值
+     */
+    private static long hexPrefix(String hash) {
+        return Long.parseLong(hash.substring(0, 8), 16);
+    }
+
+    private MigrationDocument document(long key, String sourceHash) {
+        BigDecimal id = BigDecimal.valueOf(key);
+        MigrationDocument document = new MigrationDocument(id.toString(), "APP.ORDERS",
+                Map.of("ORDER_ID", id.toString()));
+        document.setSourceHash(sourceHash);
+        document.setRangeKey(MigrationPlan.rangeKeyValue(id));
+        return document;
+    }
+
+    private static JobConfigDTO jobConfig() {
+        JobConfigDTO.OracleConfig oracle = new JobConfigDTO.OracleConfig();
+        oracle.setOwner("APP");
+        oracle.setTable("ORDERS");
+        oracle.setKeyColumns(List.of("ORDER_ID"));
+        oracle.setClobColumns(List.of("PAYLOAD"));
+
+        JobConfigDTO.SourceConfig source = new JobConfigDTO.SourceConfig();
+        source.setOracle(oracle);
+
+        JobConfigDTO.MongodbConfig mongodb = new JobConfigDTO.MongodbConfig();
+        mongodb.setDatabase("migration_test");
+        mongodb.setCollection("orders");
+
+        JobConfigDTO.TargetConfig target = new JobConfigDTO.TargetConfig();
+        target.setMongodb(mongodb);
+
+        JobConfigDTO config = new JobConfigDTO();
+        config.setName("orderJob");
+        config.setSource(source);
+        config.setTarget(target);
+        return config;
+    }
+}